@@ -0,0 +1,230 @@
+package com.github.eamonnmcmanus.wordle;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.math.IntMath;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The adversarial variant of Wordle, where the host does not commit to a solution. After each
+ * guess, the host partitions the words that are still possible according to the score they would
+ * get, and keeps the largest part. The game is over when the guess is the only word left.
+ *
+ * <p>Since the host's choices are determined by the guesses, finding the shortest win is a search
+ * over sequences of guesses. A position is just the set of words that are still possible, which we
+ * represent as a {@code BitSet} over the indices of the solution words. Many different guesses lead
+ * to the same position, so {@link #solve} remembers what it has learned about each one.
+ */
+class Absurdle {
+  private final ScoreFactory scoreFactory;
+  private final int wordLength;
+  // A guess can't split a set of words into more parts than there are possible scores. For 5-letter
+  // words there are 3^5 of those, but "++++/" and the like can't happen, which leaves 238.
+  private final int maxParts;
+  private final int[] solutions;
+  private final int[] guesses;
+  private final Histogram histogram = new Histogram();
+  // The score that each of the words in the current candidate set got for the current guess.
+  private final int[] scratchScores;
+  // For each position, the largest number of guesses that we have found to be not enough to win.
+  private final Map<BitSet, Integer> notEnough = new HashMap<>();
+  // For each position, the shortest win that we have found.
+  private final Map<BitSet, ImmutableList<Integer>> wins = new HashMap<>();
+
+  Absurdle(Dictionary dict, ScoreFactory scoreFactory) {
+    this.scoreFactory = scoreFactory;
+    this.wordLength = dict.wordLength();
+    this.maxParts = IntMath.pow(3, wordLength) - wordLength;
+    this.solutions = dict.solutionWords().stream().mapToInt(Integer::intValue).toArray();
+    this.guesses = dict.guessWords().stream().mapToInt(Integer::intValue).toArray();
+    this.scratchScores = new int[solutions.length];
+  }
+
+  /** The position at the start of the game, where every solution word is possible. */
+  BitSet start() {
+    BitSet all = new BitSet(solutions.length);
+    all.set(0, solutions.length);
+    return all;
+  }
+
+  /** The words that are possible in the given position. */
+  ImmutableList<Integer> words(BitSet position) {
+    return position.stream().mapToObj(i -> solutions[i]).collect(ImmutableList.toImmutableList());
+  }
+
+  /** The result of a guess: the score that the host gave, and the position that leaves. */
+  record Move(Score score, BitSet position) {}
+
+  /** Plays {@code guess} in {@code position}, returning the host's response. */
+  Move play(BitSet position, int guess) {
+    int worst = worstScore(candidates(position), guess);
+    return new Move(new Score(worst, wordLength), select(position, worst));
+  }
+
+  private int[] candidates(BitSet position) {
+    return position.stream().map(i -> solutions[i]).toArray();
+  }
+
+  /**
+   * Computes the score that the host gives to {@code guess} when {@code candidates} are the
+   * possible words. This also leaves the score of each candidate in {@link #scratchScores}.
+   */
+  private int worstScore(int[] candidates, int guess) {
+    histogram.clear();
+    for (int i = 0; i < candidates.length; i++) {
+      int slots = scoreFactory.slots(guess, candidates[i]);
+      scratchScores[i] = slots;
+      histogram.add(slots);
+    }
+    int worst = histogram.score(0);
+    for (int i = 1; i < histogram.size(); i++) {
+      int score = histogram.score(i);
+      if (worse(score, worst)) {
+        worst = score;
+      }
+    }
+    return worst;
+  }
+
+  // The host prefers the larger part, then the part with fewer green letters, then the part with
+  // fewer ochre letters, then the smaller score code, so that its choice is always deterministic.
+  // In particular it only declares a word solved when that is the only word left.
+  private boolean worse(int score, int than) {
+    int cmp = Integer.compare(histogram.count(score), histogram.count(than));
+    if (cmp == 0) {
+      cmp = Integer.compare(colourCount(than, 2), colourCount(score, 2));
+    }
+    if (cmp == 0) {
+      cmp = Integer.compare(colourCount(than, 1), colourCount(score, 1));
+    }
+    if (cmp == 0) {
+      cmp = Integer.compare(than, score);
+    }
+    return cmp > 0;
+  }
+
+  private static int colourCount(int slots, int colour) {
+    int count = 0;
+    for (; slots != 0; slots >>>= 2) {
+      if ((slots & 3) == colour) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // The subset of position whose scores, as left in scratchScores by worstScore, are equal to score.
+  private BitSet select(BitSet position, int score) {
+    BitSet selected = new BitSet(solutions.length);
+    int j = 0;
+    for (int i = position.nextSetBit(0); i >= 0; i = position.nextSetBit(i + 1), j++) {
+      if (scratchScores[j] == score) {
+        selected.set(i);
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Returns a shortest sequence of guesses that wins from the {@linkplain #start start}, or an empty
+   * list if there is none with at most {@code maxGuesses} guesses.
+   */
+  ImmutableList<Integer> solve(int maxGuesses) {
+    BitSet start = start();
+    for (int n = lowerBound(start.cardinality()); n <= maxGuesses; n++) {
+      ImmutableList<Integer> win = solve(start, n);
+      if (win != null) {
+        return win;
+      }
+    }
+    return ImmutableList.of();
+  }
+
+  // A lower bound on the number of guesses needed to win when there are this many possible words.
+  private int lowerBound(int size) {
+    return (size <= 1) ? 1 : 1 + lowerBound((size + maxParts - 1) / maxParts);
+  }
+
+  private record Child(int guess, BitSet position) {}
+
+  // Returns a win from position in at most n guesses, or null if there is none.
+  private ImmutableList<Integer> solve(BitSet position, int n) {
+    int size = position.cardinality();
+    if (size == 1) {
+      return ImmutableList.of(solutions[position.nextSetBit(0)]);
+    }
+    if (n < lowerBound(size) || notEnough.getOrDefault(position, 0) >= n) {
+      return null;
+    }
+    ImmutableList<Integer> known = wins.get(position);
+    if (known != null && known.size() <= n) {
+      return known;
+    }
+    // The host chooses the largest part, so the position after a guess is never bigger than the
+    // position before. We try the guesses that leave the fewest possibilities first, and we only
+    // try once for each distinct position that can result.
+    int[] candidates = candidates(position);
+    List<Child> children = new ArrayList<>();
+    Set<BitSet> seen = new HashSet<>();
+    for (int guess : guesses) {
+      int worst = worstScore(candidates, guess);
+      int worstCount = histogram.count(worst);
+      if (worstCount < size && n - 1 >= lowerBound(worstCount)) {
+        BitSet child = select(position, worst);
+        if (seen.add(child)) {
+          children.add(new Child(guess, child));
+        }
+      }
+    }
+    children.sort(Comparator.comparingInt(child -> child.position.cardinality()));
+    for (Child child : children) {
+      ImmutableList<Integer> rest = solve(child.position, n - 1);
+      if (rest != null) {
+        ImmutableList<Integer> win =
+            ImmutableList.<Integer>builder().add(child.guess).addAll(rest).build();
+        wins.put(position, win);
+        return win;
+      }
+    }
+    notEnough.put(position, n);
+    return null;
+  }
+
+  /**
+   * With no arguments, finds the shortest win. Otherwise, plays the given guesses and shows the
+   * host's responses.
+   */
+  public static void main(String[] args) {
+    Dictionary dict = Dictionary.create();
+    Absurdle absurdle = new Absurdle(dict, Score::of);
+    if (args.length == 0) {
+      long startTime = System.nanoTime();
+      ImmutableList<Integer> win = absurdle.solve(8);
+      System.out.printf(
+          "shortest win %s in %.1fs, %d positions remembered\n",
+          win.stream().map(Dictionary::decode).toList(),
+          (System.nanoTime() - startTime) / 1e9,
+          absurdle.wins.size() + absurdle.notEnough.size());
+      return;
+    }
+    BitSet position = absurdle.start();
+    for (String guess : args) {
+      Move move = absurdle.play(position, Dictionary.encode(guess));
+      position = move.position();
+      System.out.printf(
+          "%s:%s %d possible%s\n",
+          guess,
+          move.score(),
+          position.cardinality(),
+          (position.cardinality() <= 20)
+              ? " " + absurdle.words(position).stream().map(Dictionary::decode).toList()
+              : "");
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.github.eamonnmcmanus.wordle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+
+/**
+ * A precompiled form of a word list, so that {@link Dictionary} does not have to parse the text
+ * resources every time. The build runs {@link #main} to write a {@code .bin} file next to each text
+ * resource. The format is a magic number, a CRC-32 of the text file, a count, that many word codes
+ * (as produced by {@link Dictionary#encode}) in the same order as the text file, and a CRC-32 of the
+ * codes. All values are big-endian ints.
+ *
+ * <p>The CRC-32 of the text file means that a binary list is ignored if the text has changed since
+ * it was compiled, as happens when a word list is edited and the code is run from an IDE that does
+ * not run the build's {@code process-classes} step.
+ */
+class BinaryWordList {
+  static final String SUFFIX = ".bin";
+
+  private static final int MAGIC = 0x57524432; // "WRD2"
+
+  private BinaryWordList() {}
+
+  static void write(int[] codes, int textChecksum, OutputStream out) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(codes.length * 4);
+    DataOutputStream data = new DataOutputStream(bytes);
+    for (int code : codes) {
+      data.writeInt(code);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(bytes.toByteArray());
+    DataOutputStream dataOut = new DataOutputStream(out);
+    dataOut.writeInt(MAGIC);
+    dataOut.writeInt(textChecksum);
+    dataOut.writeInt(codes.length);
+    bytes.writeTo(dataOut);
+    dataOut.writeInt((int) crc.getValue());
+    dataOut.flush();
+  }
+
+  /**
+   * Reads a binary word list, or returns null if it was compiled from a text file whose CRC-32 is
+   * not {@code textChecksum}.
+   */
+  static int[] read(InputStream in, int textChecksum) throws IOException {
+    ByteBuffer buf = ByteBuffer.wrap(in.readAllBytes());
+    if (buf.remaining() < 16 || buf.getInt() != MAGIC) {
+      throw new IOException("Not a binary word list");
+    }
+    if (buf.getInt() != textChecksum) {
+      return null;
+    }
+    int count = buf.getInt();
+    if (count < 0 || buf.remaining() != count * 4 + 4) {
+      throw new IOException("Binary word list has wrong length for " + count + " words");
+    }
+    CRC32 crc = new CRC32();
+    crc.update(buf.array(), buf.position(), count * 4);
+    int[] codes = new int[count];
+    buf.asIntBuffer().get(codes);
+    buf.position(buf.position() + count * 4);
+    if (buf.getInt() != (int) crc.getValue()) {
+      throw new IOException("Binary word list has bad checksum");
+    }
+    return codes;
+  }
+
+  /**
+   * Reads the binary word list corresponding to the given text resource, or returns null if there
+   * is none or if it was compiled from a different version of the text.
+   */
+  static int[] readIfPresent(String textResource) {
+    URL url = BinaryWordList.class.getResource(textResource + SUFFIX);
+    if (url == null) {
+      return null;
+    }
+    try (InputStream in = url.openStream()) {
+      return read(in, checksum(BinaryWordList.class.getResource(textResource)));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Reading " + url, e);
+    }
+  }
+
+  /** The CRC-32 of the contents of the given URL. */
+  static int checksum(URL url) throws IOException {
+    try (InputStream in = url.openStream()) {
+      CRC32 crc = new CRC32();
+      crc.update(in.readAllBytes());
+      return (int) crc.getValue();
+    }
+  }
+
+  /**
+   * Compiles each of the text word lists into its binary form. The single argument is the
+   * directory that contains the text resources, typically {@code target/classes}.
+   */
+  public static void main(String[] args) throws IOException {
+    Path dir = Paths.get(args[0]);
+    for (String resource : Dictionary.RESOURCES) {
+      Path text = dir.resolve(resource.substring(1));
+      URL url = text.toUri().toURL();
+      int[] codes = Dictionary.readWords(url).stream().mapToInt(Dictionary::encode).toArray();
+      try (OutputStream out = Files.newOutputStream(text.resolveSibling(text.getFileName() + SUFFIX))) {
+        write(codes, checksum(url), out);
+      }
+    }
+  }
+}
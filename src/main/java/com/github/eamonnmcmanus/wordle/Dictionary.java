@@ -1,14 +1,23 @@
 package com.github.eamonnmcmanus.wordle;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author Éamonn McManus
@@ -16,17 +25,108 @@ import java.net.URL;
 class Dictionary {
   private static final String GUESS_WORDS = "/wordledict";
   private static final String SOLUTION_WORDS = "/wordlewords";
+  // Larger lists of words, which are possible answers in some variants of the game.
+  private static final String MORE_WORDS = "/morewords";
+  private static final String ALL_WORDS = "/words";
 
+  /**
+   * The prior weights of the answers in {@link #createTiered()}, for words from the standard
+   * solution list, from {@code morewords}, and from {@code words}, respectively. We have no real
+   * frequency data, but the lists are successively larger and contain successively rarer words, so
+   * each tier is made much less likely than the one before.
+   */
+  static final ImmutableList<Integer> TIER_WEIGHTS = ImmutableList.of(64, 8, 1);
+
+  /** The length of the words in the standard dictionary. */
+  static final int DEFAULT_LENGTH = 5;
+
+  /**
+   * The greatest length of a word that can be encoded in an {@code int} by {@link #encode}. The
+   * rest of the pipeline, including {@link Wordle} and {@link ScoreList}, works with any length up
+   * to this one. Longer words would need {@code long} codes throughout.
+   */
+  static final int MAX_LENGTH = 6;
+
+  /** The text resources that {@link BinaryWordList} compiles at build time. */
+  static final ImmutableList<String> RESOURCES = ImmutableList.of(GUESS_WORDS, SOLUTION_WORDS);
+
+  private final int wordLength;
   private final ImmutableSet<Integer> guessWords;
   private final ImmutableSet<Integer> solutionWords;
 
-  private Dictionary(ImmutableSet<String> guessWords, ImmutableSet<String> solutionWords) {
+  // The guess words in dictionary order. The index of a word in this array is its ordinal.
+  private final int[] guessCodes;
+  // The guess words sorted by code, and the ordinal of each one.
+  private final int[] sortedGuessCodes;
+  private final int[] sortedGuessOrdinals;
+  // The solution words sorted by code.
+  private final int[] sortedSolutionCodes;
+  // Bit i is set if the guess word with ordinal i is also a solution word.
+  private final BitSet solutionOrdinals;
+  // The prior weight of the solution with each guess ordinal, or null if every solution has weight
+  // 1. Guesses that are not solutions have weight 0.
+  private final int[] weights;
+  private final GuessIndex guessIndex;
+
+  private Dictionary(int[] guessCodes, int[] solutionCodes) {
+    this(guessCodes, solutionCodes, null);
+  }
+
+  /**
+   * Constructs a dictionary where solution {@code solutionCodes[i]} has prior weight
+   * {@code solutionWeights[i]}, or where every solution has weight 1 if {@code solutionWeights} is
+   * null.
+   */
+  private Dictionary(int[] guessCodes, int[] solutionCodes, int[] solutionWeights) {
+    this.guessWords = ImmutableSet.copyOf(Ints.asList(guessCodes));
+    this.solutionWords = ImmutableSet.copyOf(Ints.asList(solutionCodes));
     if (!guessWords.containsAll(solutionWords)) {
       throw new IllegalArgumentException(
-          "Missing words: " + Sets.difference(solutionWords, guessWords));
+          "Missing words: "
+              + Sets.difference(solutionWords, guessWords).stream().map(Dictionary::decode).toList());
+    }
+    this.wordLength = (guessCodes.length == 0) ? DEFAULT_LENGTH : length(guessCodes[0]);
+    for (int code : guessCodes) {
+      if (length(code) != wordLength) {
+        throw new IllegalArgumentException(
+            "Words of different lengths: " + decode(guessCodes[0]) + ", " + decode(code));
+      }
     }
-    this.guessWords = guessWords.stream().map(Dictionary::encode).collect(toImmutableSet());
-    this.solutionWords = solutionWords.stream().map(Dictionary::encode).collect(toImmutableSet());
+    this.guessCodes = Ints.toArray(guessWords);
+    int n = this.guessCodes.length;
+    long[] codeAndOrdinal = new long[n];
+    for (int i = 0; i < n; i++) {
+      codeAndOrdinal[i] = ((long) this.guessCodes[i] << 32) | i;
+    }
+    Arrays.sort(codeAndOrdinal);
+    this.sortedGuessCodes = new int[n];
+    this.sortedGuessOrdinals = new int[n];
+    for (int i = 0; i < n; i++) {
+      sortedGuessCodes[i] = (int) (codeAndOrdinal[i] >> 32);
+      sortedGuessOrdinals[i] = (int) codeAndOrdinal[i];
+    }
+    this.sortedSolutionCodes = Ints.toArray(solutionWords);
+    Arrays.sort(sortedSolutionCodes);
+    this.solutionOrdinals = new BitSet(n);
+    for (int code : sortedSolutionCodes) {
+      solutionOrdinals.set(guessOrdinal(code));
+    }
+    if (solutionWeights == null) {
+      this.weights = null;
+    } else {
+      this.weights = new int[n];
+      for (int i = 0; i < solutionCodes.length; i++) {
+        checkArgument(
+            solutionWeights[i] > 0, "Weight of %s not positive", decode(solutionCodes[i]));
+        weights[guessOrdinal(solutionCodes[i])] = solutionWeights[i];
+      }
+    }
+    this.guessIndex = new GuessIndex(this);
+  }
+
+  /** The length of every word in this dictionary. */
+  int wordLength() {
+    return wordLength;
   }
 
   ImmutableSet<Integer> guessWords() {
@@ -37,22 +137,188 @@ class Dictionary {
     return solutionWords;
   }
 
+  boolean isGuess(int code) {
+    return search(sortedGuessCodes, code) >= 0;
+  }
+
+  boolean isSolution(int code) {
+    return search(sortedSolutionCodes, code) >= 0;
+  }
+
+  /** The number of guess words, which is also one more than the largest ordinal. */
+  int guessCount() {
+    return guessCodes.length;
+  }
+
+  int guessCode(int ordinal) {
+    return guessCodes[ordinal];
+  }
+
+  /**
+   * Returns the ordinal of the given guess word, meaning its position in {@link #guessWords()}, or
+   * -1 if it is not a guess word.
+   */
+  int guessOrdinal(int code) {
+    int i = search(sortedGuessCodes, code);
+    return (i < 0) ? -1 : sortedGuessOrdinals[i];
+  }
+
+  boolean isSolutionOrdinal(int ordinal) {
+    return solutionOrdinals.get(ordinal);
+  }
+
+  /** True if the solutions have prior weights other than 1. */
+  boolean isWeighted() {
+    return weights != null;
+  }
+
+  /**
+   * The prior weight of the guess word with the given ordinal as a solution, which is 0 if it is
+   * not a solution. Solutions have weight 1 unless the dictionary {@linkplain #isWeighted() is
+   * weighted}. A solution with weight w is taken to be w times as likely as one with weight 1.
+   */
+  int weightOfOrdinal(int ordinal) {
+    if (weights == null) {
+      return solutionOrdinals.get(ordinal) ? 1 : 0;
+    }
+    return weights[ordinal];
+  }
+
+  int weight(int code) {
+    int ordinal = guessOrdinal(code);
+    return (ordinal < 0) ? 0 : weightOfOrdinal(ordinal);
+  }
+
+  /**
+   * Returns a dictionary with the same guesses as this one, whose solutions are the keys of
+   * {@code weights}, with the corresponding prior weights.
+   */
+  Dictionary withWeights(Map<Integer, Integer> weights) {
+    int[] solutionCodes = Ints.toArray(weights.keySet());
+    int[] solutionWeights = Ints.toArray(weights.values());
+    return new Dictionary(guessCodes, solutionCodes, solutionWeights);
+  }
+
+  /**
+   * Returns a dictionary with the standard guesses, where any of them that is in one of the larger
+   * word lists can also be the answer. The prior weight of each answer is from
+   * {@link #TIER_WEIGHTS}, according to the first list it is in.
+   */
+  static Dictionary createTiered() {
+    Dictionary standard = create();
+    Map<Integer, Integer> weights = new LinkedHashMap<>();
+    List<String> tiers = List.of(SOLUTION_WORDS, MORE_WORDS, ALL_WORDS);
+    for (int tier = 0; tier < tiers.size(); tier++) {
+      for (String word : readWords(Dictionary.class.getResource(tiers.get(tier)))) {
+        int code = encode(word);
+        if (standard.isGuess(code)) {
+          weights.putIfAbsent(code, TIER_WEIGHTS.get(tier));
+        }
+      }
+    }
+    return standard.withWeights(weights);
+  }
+
+  /** The index for finding the guesses that are consistent with, or allowed after, some scores. */
+  GuessIndex guessIndex() {
+    return guessIndex;
+  }
+
+  /** Returns a new {@code BitSet} where bit i is set if the guess with ordinal i is a solution. */
+  BitSet solutionOrdinals() {
+    return (BitSet) solutionOrdinals.clone();
+  }
+
+  /** Sets {@code bits} so that bit i is set if and only if the guess with ordinal i is a solution. */
+  void solutionOrdinals(BitSet bits) {
+    bits.clear();
+    bits.or(solutionOrdinals);
+  }
+
+  // Returns the index of key in the sorted array a, or -1 if it is not there. The body of the loop
+  // only chooses between two values, which the JIT compiles to a conditional move, so there are no
+  // mispredicted branches.
+  private static int search(int[] a, int key) {
+    int n = a.length;
+    if (n == 0) {
+      return -1;
+    }
+    int base = 0;
+    while (n > 1) {
+      int half = n >>> 1;
+      base = (a[base + half] <= key) ? base + half : base;
+      n -= half;
+    }
+    return (a[base] == key) ? base : -1;
+  }
+
+  /**
+   * Returns the standard dictionary. It is loaded the first time this method is called, from the
+   * precompiled {@link BinaryWordList} resources if they exist and were compiled from the current
+   * text ones, and otherwise from the text ones.
+   */
   static Dictionary create() {
-    return create(
-        Dictionary.class.getResource(GUESS_WORDS),
-        Dictionary.class.getResource(SOLUTION_WORDS));
+    return DefaultHolder.DEFAULT;
+  }
+
+  private static class DefaultHolder {
+    static final Dictionary DEFAULT = load();
+
+    private static Dictionary load() {
+      int[] guessCodes = BinaryWordList.readIfPresent(GUESS_WORDS);
+      int[] solutionCodes = BinaryWordList.readIfPresent(SOLUTION_WORDS);
+      if (guessCodes == null || solutionCodes == null) {
+        return create(
+            Dictionary.class.getResource(GUESS_WORDS),
+            Dictionary.class.getResource(SOLUTION_WORDS));
+      }
+      return new Dictionary(guessCodes, solutionCodes);
+    }
   }
 
   static Dictionary create(URL guessWordsUrl, URL solutionWordsUrl) {
-    ImmutableSet<String> guessWords = readWords(guessWordsUrl);
-    ImmutableSet<String> solutionWords = readWords(solutionWordsUrl);
-    return new Dictionary(guessWords, solutionWords);
+    return create(guessWordsUrl, solutionWordsUrl, DEFAULT_LENGTH);
+  }
+
+  /**
+   * Returns a dictionary of the words of the given length from the given lists. Words of other
+   * lengths in the lists are ignored.
+   */
+  static Dictionary create(URL guessWordsUrl, URL solutionWordsUrl, int length) {
+    checkArgument(
+        length >= 1 && length <= MAX_LENGTH,
+        "Word length must be between 1 and %s: %s",
+        MAX_LENGTH,
+        length);
+    return create(readWords(guessWordsUrl, length), readWords(solutionWordsUrl, length));
+  }
+
+  /**
+   * Returns a dictionary of the given words, in the order given. The words must be lower case and
+   * all of the same length, and every solution word must also be a guess word.
+   */
+  static Dictionary create(Iterable<String> guessWords, Iterable<String> solutionWords) {
+    return new Dictionary(encodeAll(guessWords), encodeAll(solutionWords));
+  }
+
+  private static int[] encodeAll(Iterable<String> words) {
+    List<Integer> codes = new ArrayList<>();
+    for (String word : words) {
+      checkArgument(allLowerCase(word), "Not a lower-case word: %s", word);
+      codes.add(encode(word));
+    }
+    return Ints.toArray(codes);
   }
 
   static ImmutableSet<String> readWords(URL url) {
+    return readWords(url, DEFAULT_LENGTH);
+  }
+
+  /** Reads the lower-case words of the given length from {@code url}, ignoring any other lines. */
+  static ImmutableSet<String> readWords(URL url, int length) {
     try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()))) {
       return reader.lines()
-          .filter(s -> s.length() == 5)
+          .filter(s -> s.length() == length)
           .filter(s -> allLowerCase(s))
           .collect(toImmutableSet());
     } catch (IOException e) {
@@ -70,9 +336,13 @@ class Dictionary {
     return true;
   }
 
+  // A word is encoded with 5 bits per letter, 'a' being 1, and the first letter in the low-order
+  // bits. Since no letter is 0, the length of a word can be deduced from its code.
+
   static int encode(String s) {
+    checkArgument(s.length() <= MAX_LENGTH, "Word too long for an int code: %s", s);
     int code = 0;
-    for (int i = 0, shift = 0; i < 5; i++, shift += 5) {
+    for (int i = 0, shift = 0; i < s.length(); i++, shift += 5) {
       int c = s.charAt(i) - 'a' + 1;
       code |= c << shift;
     }
@@ -80,11 +350,17 @@ class Dictionary {
   }
 
   static String decode(int code) {
-    char[] chars = new char[5];
-    for (int i = 0, shift = 0; i < 5; i++, shift += 5) {
+    char[] chars = new char[length(code)];
+    for (int i = 0, shift = 0; i < chars.length; i++, shift += 5) {
       int c = (code >> shift) & 31;
       chars[i] = (char) (c + 'a' - 1);
     }
     return new String(chars);
   }
+
+  /** The number of letters in the word with the given code. */
+  static int length(int code) {
+    // The highest set bit is in the field of the last letter.
+    return (36 - Integer.numberOfLeadingZeros(code)) / 5;
+  }
 }
@@ -0,0 +1,428 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.github.eamonnmcmanus.wordle.Wordle.TotalAndMax;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads the work of {@code Wordle.parallelSolve} across several processes, which may be on
+ * different machines. A coordinator process splits the work into leases, each of which is a
+ * starting word and a range of solutions. Worker processes connect to the coordinator over TCP,
+ * take a lease, solve the games it covers, and send back the {@link TotalAndMax} for those games.
+ * When every lease for a starting word is done, the coordinator appends the combined result to
+ * the output file in the same format as {@code parallelSolve}.
+ *
+ * <p>A lease that is not completed within the lease time, or whose worker disconnects, is given to
+ * another worker. Only the worker that holds a lease can complete it, so if the original worker
+ * does finish after all, its result is refused. Solving is deterministic, so the new holder will
+ * send the same result. The lease time should be comfortably longer than it takes to solve one
+ * lease.
+ *
+ * <p>The protocol is line-based text. A worker sends {@code LEASE} and gets back one of
+ * {@code WORK <id> <starting> <from> <to> <guesser>}, {@code WAIT <millis>} (every remaining lease
+ * is held by some other worker), or {@code DONE}. After {@code WORK}, the worker eventually sends
+ * {@code RESULT <id> <total> <max>}, which the coordinator acknowledges with {@code OK}, or
+ * refuses with {@code ERROR <message>} if the worker doesn't hold that lease.
+ *
+ * <p>There is no authentication, so by default the coordinator only accepts connections from the
+ * same machine. To use workers on other machines, give the coordinator an address to listen on,
+ * such as {@code 0.0.0.0:5000}, but only on a network where every host that can reach it is
+ * trusted.
+ *
+ * <p>Usage: {@code DistributedSolve coordinator [<address>:]<port> [<guesser> [<range size>
+ * [<lease seconds>]]]} or {@code DistributedSolve worker <host> <port> [<threads>]}.
+ */
+class DistributedSolve {
+  // Wordle.weightedGuesses is not here, because these tools use the unweighted dictionary, where it
+  // only differs from irving in how it breaks ties.
+  static final ImmutableMap<String, Wordle.Guesser> GUESSERS = ImmutableMap.of(
+      "knuth", Wordle::knuthGuesses,
+      "irving", Wordle::irvingGuesses,
+      "neuwirth", Wordle::neuwirthGuesses);
+
+  /**
+   * A unit of work: the games whose solutions are elements {@code from} (inclusive) to {@code to}
+   * (exclusive) of {@code dict.solutionWords()}, starting with {@code starting}.
+   */
+  record Lease(int id, int starting, int from, int to) {}
+
+  /**
+   * The worker that currently holds a lease, identified by an object that is unique to its
+   * connection, and the {@code System.nanoTime()} when the lease expires.
+   */
+  private record Holder(Object worker, long deadline) {}
+
+  /** Hands out leases and collects their results. */
+  static final class Coordinator implements Closeable {
+    private final String guesserName;
+    private final long leaseNanos;
+    private final ImmutableList<Lease> leases;
+    private final PrintWriter writer;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+      Thread t = new Thread(r, "wordle-coordinator");
+      t.setDaemon(true);
+      return t;
+    });
+    private final long startTime = System.nanoTime();
+
+    // The state below is guarded by this.
+
+    // The ids of the leases that are not held by any worker and not completed.
+    private final ArrayDeque<Integer> pending = new ArrayDeque<>();
+    // The ids of the leases that are held by a worker, with the worker that holds each one. When a
+    // lease expires and is given to another worker, the original worker can no longer release or
+    // complete it.
+    private final Map<Integer, Holder> holders = new HashMap<>();
+    // For each starting word, the combined result of its completed leases and how many remain.
+    private final Map<Integer, TotalAndMax> partials = new HashMap<>();
+    private final Map<Integer, Integer> remainingByWord = new HashMap<>();
+    private int remaining;
+    private int wordsDone;
+
+    /**
+     * Creates a coordinator that accepts connections from the local machine on {@code port}, or on
+     * some free port if that is 0.
+     */
+    Coordinator(
+        int port,
+        List<Integer> startWords,
+        int answerCount,
+        int rangeSize,
+        String guesserName,
+        long leaseMillis,
+        Path output)
+        throws IOException {
+      this(
+          InetAddress.getLoopbackAddress(),
+          port,
+          startWords,
+          answerCount,
+          rangeSize,
+          guesserName,
+          leaseMillis,
+          output);
+    }
+
+    /**
+     * Creates a coordinator that accepts connections on {@code bindAddress} and {@code port}, or on
+     * some free port if that is 0.
+     *
+     * @param startWords the starting words to solve
+     * @param answerCount how many of the solution words to solve with each starting word, normally
+     *     all of them
+     * @param rangeSize how many solutions each lease covers
+     * @param output the file that the results are appended to
+     */
+    Coordinator(
+        InetAddress bindAddress,
+        int port,
+        List<Integer> startWords,
+        int answerCount,
+        int rangeSize,
+        String guesserName,
+        long leaseMillis,
+        Path output)
+        throws IOException {
+      checkArgument(GUESSERS.containsKey(guesserName), "Unknown guesser %s", guesserName);
+      checkArgument(rangeSize > 0, "Range size must be positive: %s", rangeSize);
+      this.guesserName = guesserName;
+      this.leaseNanos = TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+      ImmutableList.Builder<Lease> leases = ImmutableList.builder();
+      int id = 0;
+      for (int starting : startWords) {
+        int count = 0;
+        for (int from = 0; from < answerCount; from += rangeSize) {
+          pending.add(id);
+          leases.add(new Lease(id++, starting, from, Math.min(from + rangeSize, answerCount)));
+          count++;
+        }
+        remainingByWord.put(starting, count);
+        partials.put(starting, TotalAndMax.EMPTY);
+      }
+      this.leases = leases.build();
+      this.remaining = id;
+      this.writer = new PrintWriter(
+          Files.newBufferedWriter(output, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+      this.serverSocket = new ServerSocket(port, 0, bindAddress);
+      executor.execute(this::acceptConnections);
+    }
+
+    /** The port that workers should connect to. */
+    int port() {
+      return serverSocket.getLocalPort();
+    }
+
+    /** Waits until every lease is completed, or the timeout expires. Returns true in the first case. */
+    synchronized boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      while (remaining > 0) {
+        long wait = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (wait <= 0) {
+          return false;
+        }
+        wait(wait);
+      }
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      serverSocket.close();
+      executor.shutdownNow();
+      synchronized (this) {
+        writer.close();
+      }
+    }
+
+    private void acceptConnections() {
+      while (!serverSocket.isClosed()) {
+        try {
+          Socket socket = serverSocket.accept();
+          executor.execute(() -> serve(socket));
+        } catch (IOException e) {
+          // The server socket was closed, or the connection failed before we got it.
+        }
+      }
+    }
+
+    private void serve(Socket socket) {
+      Object worker = new Object();
+      Lease current = null;
+      try (socket;
+          BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+          PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), UTF_8))) {
+        String line;
+        while ((line = in.readLine()) != null) {
+          String[] words = line.split(" ");
+          switch (words[0]) {
+            case "LEASE" -> {
+              // A worker that asks for a new lease has given up on the one it had.
+              if (current != null) {
+                release(current.id(), worker);
+              }
+              current = assign(worker);
+              if (current != null) {
+                out.printf(
+                    "WORK %d %s %d %d %s\n",
+                    current.id(),
+                    Dictionary.decode(current.starting()),
+                    current.from(),
+                    current.to(),
+                    guesserName);
+              } else if (isDone()) {
+                out.println("DONE");
+              } else {
+                out.println("WAIT " + Math.min(1000, TimeUnit.NANOSECONDS.toMillis(leaseNanos)));
+              }
+            }
+            case "RESULT" -> {
+              int id = Integer.parseInt(words[1]);
+              TotalAndMax result =
+                  new TotalAndMax(Long.parseLong(words[2]), Integer.parseInt(words[3]));
+              if (complete(id, worker, result)) {
+                if (current != null && current.id() == id) {
+                  current = null;
+                }
+                out.println("OK");
+              } else {
+                out.println("ERROR lease not held: " + id);
+              }
+            }
+            default -> out.println("ERROR unknown request: " + line);
+          }
+          out.flush();
+        }
+      } catch (IOException | RuntimeException e) {
+        // The worker went away or sent something we couldn't parse. Either way, its lease is free.
+      } finally {
+        if (current != null) {
+          release(current.id(), worker);
+        }
+      }
+    }
+
+    private synchronized boolean isDone() {
+      return remaining == 0;
+    }
+
+    // Returns a lease for the given worker, or null if there is none. Expired leases go back to the
+    // front of the queue, since other work may be waiting for them. Their former holders no longer
+    // hold them, so they can't release them once they have been given to someone else.
+    private synchronized Lease assign(Object worker) {
+      long now = System.nanoTime();
+      for (Iterator<Map.Entry<Integer, Holder>> it = holders.entrySet().iterator(); it.hasNext(); ) {
+        Map.Entry<Integer, Holder> entry = it.next();
+        if (entry.getValue().deadline() - now < 0) {
+          pending.addFirst(entry.getKey());
+          it.remove();
+        }
+      }
+      Integer id = pending.pollFirst();
+      if (id == null) {
+        return null;
+      }
+      holders.put(id, new Holder(worker, now + leaseNanos));
+      return leases.get(id);
+    }
+
+    // Called when a worker disconnects without completing its lease, or asks for another one. If
+    // the lease expired and now belongs to another worker, or is back in the queue, nothing happens.
+    private synchronized void release(int id, Object worker) {
+      Holder holder = holders.get(id);
+      if (holder != null && holder.worker() == worker) {
+        holders.remove(id);
+        pending.addFirst(id);
+      }
+    }
+
+    // Records the result of a lease, if the given worker holds it. Returns false if it doesn't,
+    // because the lease expired and went to another worker, or is already completed, or doesn't
+    // exist.
+    private synchronized boolean complete(int id, Object worker, TotalAndMax result) {
+      Holder holder = holders.get(id);
+      if (holder == null || holder.worker() != worker) {
+        return false;
+      }
+      holders.remove(id);
+      int starting = leases.get(id).starting();
+      TotalAndMax partial = partials.get(starting).plus(result);
+      partials.put(starting, partial);
+      int left = remainingByWord.merge(starting, -1, Integer::sum);
+      if (left == 0) {
+        wordsDone++;
+        Wordle.writeStartResult(writer, starting, partial, System.nanoTime() - startTime, wordsDone);
+      }
+      if (--remaining == 0) {
+        notifyAll();
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Connects to the coordinator at {@code host:port} and solves leases until there are none left.
+   */
+  static void work(Dictionary dict, String host, int port) throws IOException, InterruptedException {
+    try (Socket socket = new Socket(host, port);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), UTF_8))) {
+      while (true) {
+        out.println("LEASE");
+        out.flush();
+        String line = in.readLine();
+        if (line == null || line.equals("DONE")) {
+          return;
+        }
+        String[] words = line.split(" ");
+        switch (words[0]) {
+          case "WAIT" -> Thread.sleep(Long.parseLong(words[1]));
+          case "WORK" -> {
+            int starting = Dictionary.encode(words[2]);
+            Wordle.Guesser guesser = GUESSERS.get(words[5]);
+            if (guesser == null) {
+              throw new IOException("Unknown guesser: " + line);
+            }
+            TotalAndMax result = Wordle.solveRange(
+                dict, guesser, starting, Integer.parseInt(words[3]), Integer.parseInt(words[4]));
+            out.printf("RESULT %s %d %d\n", words[1], result.total(), result.max());
+            out.flush();
+            // An ERROR means that the lease expired and went to another worker, which will send
+            // the same result. Either way we can go on to the next lease.
+            String reply = in.readLine();
+            if (reply == null || !(reply.equals("OK") || reply.startsWith("ERROR "))) {
+              return;
+            }
+          }
+          default -> throw new IOException("Unexpected reply from coordinator: " + line);
+        }
+      }
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Dictionary dict = Dictionary.create();
+    switch (args.length == 0 ? "" : args[0]) {
+      case "coordinator" -> {
+        int colon = args[1].lastIndexOf(':');
+        InetAddress bindAddress = (colon < 0)
+            ? InetAddress.getLoopbackAddress()
+            : InetAddress.getByName(args[1].substring(0, colon));
+        int port = Integer.parseInt(args[1].substring(colon + 1));
+        String guesser = (args.length > 2) ? args[2] : "irving";
+        int rangeSize = (args.length > 3) ? Integer.parseInt(args[3]) : 100;
+        long leaseSeconds = (args.length > 4) ? Long.parseLong(args[4]) : 600;
+        Path output = Wordle.START_WORDS_OUTPUT;
+        List<Integer> startWords = new ArrayList<>(
+            Sets.difference(dict.solutionWords(), Wordle.existingStartWords(output)));
+        try (Coordinator coordinator = new Coordinator(
+            bindAddress,
+            port,
+            startWords,
+            dict.solutionWords().size(),
+            rangeSize,
+            guesser,
+            TimeUnit.SECONDS.toMillis(leaseSeconds),
+            output)) {
+          System.out.printf(
+              "coordinating %d starting words on %s port %d\n",
+              startWords.size(),
+              bindAddress.getHostAddress(),
+              coordinator.port());
+          coordinator.awaitCompletion(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+      }
+      case "worker" -> {
+        String host = args[1];
+        int port = Integer.parseInt(args[2]);
+        int threads =
+            (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+          futures.add(executor.submit(() -> {
+            work(dict, host, port);
+            return null;
+          }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+        executor.shutdown();
+      }
+      default -> {
+        System.err.println(
+            "Usage: DistributedSolve coordinator [<address>:]<port> [<guesser> [<range size>"
+                + " [<lease seconds>]]]\n"
+                + "       DistributedSolve worker <host> <port> [<threads>]");
+        System.exit(1);
+      }
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package com.github.eamonnmcmanus.wordle;
+
+import java.util.BitSet;
+
+/**
+ * Inverted indexes over the guess words of a {@link Dictionary}, from which the guesses that are
+ * consistent with a {@link ScoreList}, or allowed after it in hard mode, can be found by combining
+ * a few bit sets rather than by scoring every guess against every earlier one. Bit i of each set is
+ * for the guess with ordinal i.
+ *
+ * <p>A score gives two kinds of constraint on the answer. A green letter must be at its position
+ * in the answer, and an ochre or grey letter must not be. And if a letter occurs n times in the
+ * guess with a green or ochre score, the answer contains that letter at least n times, or exactly n
+ * times if some other occurrence of the letter is grey. Since {@link Score#of(int, int)} gives ochre
+ * scores to the earlier occurrences of a letter before the later ones, a word satisfies all those
+ * constraints exactly when it would get the same score. The first kind of constraint is a lookup
+ * in {@link #letterAt} and the second is a lookup in {@link #atLeast}.
+ */
+final class GuessIndex {
+  // Bit i of letterAt[position][c] is set if guess i has letter c at that position.
+  private final BitSet[][] letterAt;
+  // Bit i of atLeast[c][k] is set if guess i has letter c at least k times. atLeast[c][0] has
+  // every bit set.
+  private final BitSet[][] atLeast;
+  private final int guessCount;
+  private final int wordLength;
+
+  GuessIndex(Dictionary dict) {
+    this.guessCount = dict.guessCount();
+    this.wordLength = dict.wordLength();
+    this.letterAt = new BitSet[wordLength][32];
+    this.atLeast = new BitSet[32][wordLength + 2];
+    for (int position = 0; position < wordLength; position++) {
+      for (int c = 0; c < 32; c++) {
+        letterAt[position][c] = new BitSet(guessCount);
+      }
+    }
+    for (int c = 0; c < 32; c++) {
+      for (int k = 0; k < wordLength + 2; k++) {
+        atLeast[c][k] = new BitSet(guessCount);
+      }
+      atLeast[c][0].set(0, guessCount);
+    }
+    int[] counts = new int[32];
+    for (int i = 0; i < guessCount; i++) {
+      int code = dict.guessCode(i);
+      for (int position = 0, shift = 0; position < wordLength; position++, shift += 5) {
+        int c = (code >> shift) & 31;
+        letterAt[position][c].set(i);
+        atLeast[c][++counts[c]].set(i);
+      }
+      for (int position = 0, shift = 0; position < wordLength; position++, shift += 5) {
+        counts[(code >> shift) & 31] = 0;
+      }
+    }
+  }
+
+  /**
+   * Clears the bits in {@code ordinals} of the guesses that are not consistent with
+   * {@code scores}, meaning that they would not get the same score for every guess in it if they
+   * were the answer.
+   */
+  void retainConsistent(ScoreList scores, BitSet ordinals) {
+    for (ScoreList s = scores; s.size() > 0; s = s.previous()) {
+      retainConsistent(s.guess(), s.score(), ordinals);
+    }
+  }
+
+  private void retainConsistent(int guess, Score score, BitSet ordinals) {
+    int slots = score.slots();
+    int seen = 0; // bit c is set if letter c has been handled
+    for (int position = 0, shift = 0; position < wordLength; position++, shift += 5) {
+      int c = (guess >> shift) & 31;
+      int colour = (slots >> (2 * position)) & 3;
+      if (colour == GREEN) {
+        ordinals.and(letterAt[position][c]);
+      } else {
+        ordinals.andNot(letterAt[position][c]);
+      }
+      if ((seen & (1 << c)) == 0) {
+        seen |= 1 << c;
+        // Count the green, ochre, and grey occurrences of c, checking that the ochre ones all come
+        // before the grey ones, as they do in any score from Score.of.
+        int found = 0;
+        boolean grey = false;
+        for (int j = position, jShift = shift; j < wordLength; j++, jShift += 5) {
+          if (((guess >> jShift) & 31) == c) {
+            int jColour = (slots >> (2 * j)) & 3;
+            if (jColour == GREY) {
+              grey = true;
+            } else {
+              if (jColour == OCHRE && grey) {
+                ordinals.clear();
+                return;
+              }
+              found++;
+            }
+          }
+        }
+        ordinals.and(atLeast[c][found]);
+        if (grey) {
+          ordinals.andNot(atLeast[c][found + 1]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Clears the bits in {@code ordinals} of the guesses that are not allowed in hard mode after
+   * {@code scores}, in the sense of {@link ScoreList#allowedInHardMode}. Every green letter must
+   * be in the same place, and if a letter has g green and o ochre scores in one guess then it must
+   * occur at least g + o times.
+   */
+  void retainAllowedInHardMode(ScoreList scores, BitSet ordinals) {
+    for (ScoreList s = scores; s.size() > 0; s = s.previous()) {
+      retainAllowedInHardMode(s.guess(), s.score(), ordinals);
+    }
+  }
+
+  private void retainAllowedInHardMode(int guess, Score score, BitSet ordinals) {
+    int slots = score.slots();
+    int seen = 0; // bit c is set if letter c has been handled
+    for (int position = 0, shift = 0; position < wordLength; position++, shift += 5) {
+      int c = (guess >> shift) & 31;
+      if (((slots >> (2 * position)) & 3) == GREEN) {
+        ordinals.and(letterAt[position][c]);
+      }
+      if ((seen & (1 << c)) == 0) {
+        seen |= 1 << c;
+        int found = 0;
+        for (int j = position, jShift = shift; j < wordLength; j++, jShift += 5) {
+          if (((guess >> jShift) & 31) == c && ((slots >> (2 * j)) & 3) != GREY) {
+            found++;
+          }
+        }
+        if (found > 0) {
+          ordinals.and(atLeast[c][found]);
+        }
+      }
+    }
+  }
+
+  private static final int GREY = 0;
+  private static final int OCHRE = 1;
+  private static final int GREEN = 2;
+}
@@ -0,0 +1,271 @@
+package com.github.eamonnmcmanus.wordle;
+
+/**
+ * Counts how many of a set of candidate words get each possible score for a guess. This is the
+ * inner loop of all the guessers, so it works on primitive {@linkplain Score#slots() score slots}
+ * and is reused from one guess to the next rather than being allocated each time. An instance must
+ * only be used by one thread at a time.
+ */
+final class Histogram {
+  private final int[] counts = new int[Score.SLOT_VALUES];
+  // The distinct scores that have a nonzero count, in the order they were first seen.
+  private final int[] scores = new int[Score.SLOT_VALUES];
+  // The total weight of the candidates that get each score, for weightedSumOfSquaresWithin.
+  private final long[] weights = new long[Score.SLOT_VALUES];
+  private int size;
+
+  /** Replaces the contents of this histogram with the scores of {@code guess} against each candidate. */
+  void tally(ScoreFactory scoreFactory, int guess, int[] candidates) {
+    clear();
+    for (int actual : candidates) {
+      add(scoreFactory.slots(guess, actual));
+    }
+  }
+
+  /**
+   * Tallies the scores of {@code guess} against each candidate, like {@link #tally}, and returns
+   * {@link #maxCount()}. But if any count exceeds {@code bound}, stops immediately and returns
+   * {@code Long.MAX_VALUE}.
+   */
+  long maxCountWithin(ScoreFactory scoreFactory, int guess, int[] candidates, long bound) {
+    clear();
+    int max = (candidates.length == 0) ? Integer.MAX_VALUE : 0;
+    for (int actual : candidates) {
+      int slots = scoreFactory.slots(guess, actual);
+      add(slots);
+      int count = counts[slots];
+      if (count > max) {
+        if (count > bound) {
+          return Long.MAX_VALUE;
+        }
+        max = count;
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Tallies the scores of {@code guess} against each candidate, like {@link #tally}, and returns
+   * {@link #sumOfSquares()}. But if the sum exceeds {@code bound}, stops immediately and returns
+   * {@code Long.MAX_VALUE}. The sum can only grow as candidates are added, since adding one to a
+   * count of k adds 2k+1 to the sum of squares.
+   */
+  long sumOfSquaresWithin(ScoreFactory scoreFactory, int guess, int[] candidates, long bound) {
+    clear();
+    long sum = 0;
+    for (int actual : candidates) {
+      int slots = scoreFactory.slots(guess, actual);
+      sum += 2 * counts[slots] + 1;
+      if (sum > bound) {
+        return Long.MAX_VALUE;
+      }
+      add(slots);
+    }
+    return sum;
+  }
+
+  /**
+   * Tallies the scores of {@code guess} against each candidate, like {@link #tally}, and returns
+   * {@link #nLogN()}. But if the sum exceeds {@code bound}, stops immediately and returns
+   * {@code Long.MAX_VALUE}. The sum can only grow as candidates are added, since (k+1) ln (k+1) is
+   * at least k ln k.
+   */
+  long nLogNWithin(ScoreFactory scoreFactory, int guess, int[] candidates, long bound) {
+    long[] increments = nLogNIncrements(candidates.length);
+    clear();
+    long sum = 0;
+    for (int actual : candidates) {
+      int slots = scoreFactory.slots(guess, actual);
+      sum += increments[counts[slots]];
+      if (sum > bound) {
+        return Long.MAX_VALUE;
+      }
+      add(slots);
+    }
+    return sum;
+  }
+
+  /**
+   * Tallies the scores of {@code guess} against each candidate, like {@link #tally}, where
+   * candidate i has weight {@code candidateWeights[i]}, and returns the sum over the scores of the
+   * square of the total weight of the candidates that get that score. But if the sum exceeds
+   * {@code bound}, stops immediately and returns {@code Long.MAX_VALUE}. As with
+   * {@link #sumOfSquaresWithin}, the sum can only grow, since adding weight w to a total of W adds
+   * (2W + w)w to the sum. With every weight 1, this is the same as {@link #sumOfSquaresWithin}.
+   */
+  long weightedSumOfSquaresWithin(
+      ScoreFactory scoreFactory, int guess, int[] candidates, int[] candidateWeights, long bound) {
+    clear();
+    long sum = 0;
+    for (int i = 0; i < candidates.length; i++) {
+      int slots = scoreFactory.slots(guess, candidates[i]);
+      long w = candidateWeights[i];
+      long before = weights[slots];
+      sum += (2 * before + w) * w;
+      if (sum > bound) {
+        return Long.MAX_VALUE;
+      }
+      add(slots);
+      weights[slots] = before + w;
+    }
+    return sum;
+  }
+
+  void add(int slots) {
+    if (counts[slots]++ == 0) {
+      scores[size++] = slots;
+    }
+  }
+
+  void clear() {
+    for (int i = 0; i < size; i++) {
+      counts[scores[i]] = 0;
+      weights[scores[i]] = 0;
+    }
+    size = 0;
+  }
+
+  /** The number of distinct scores, which is the number of parts in the partition. */
+  int size() {
+    return size;
+  }
+
+  /** The {@code i}th distinct score, for {@code 0 <= i < size()}. */
+  int score(int i) {
+    return scores[i];
+  }
+
+  int count(int slots) {
+    return counts[slots];
+  }
+
+  /** The total weight of the candidates that got the given score in the last weighted tally. */
+  long weight(int slots) {
+    return weights[slots];
+  }
+
+  /** The largest count, or {@code Integer.MAX_VALUE} if the histogram is empty. */
+  int maxCount() {
+    if (size == 0) {
+      return Integer.MAX_VALUE;
+    }
+    int max = 0;
+    for (int i = 0; i < size; i++) {
+      max = Math.max(max, counts[scores[i]]);
+    }
+    return max;
+  }
+
+  long sumOfSquares() {
+    long sum = 0;
+    for (int i = 0; i < size; i++) {
+      long count = counts[scores[i]];
+      sum += count * count;
+    }
+    return sum;
+  }
+
+  /**
+   * Σ k ln k over the counts k, in fixed point with {@link #N_LOG_N_SHIFT} fraction bits. This is
+   * the negation of {@link #entropy()}, but it is computed without any calls to {@code Math.log},
+   * and two histograms whose values of Σ k ln k are mathematically equal get exactly the same
+   * result. See {@link #nLogNTable}.
+   */
+  long nLogN() {
+    long[] table = nLogNTable(maxCountOrZero());
+    long sum = 0;
+    for (int i = 0; i < size; i++) {
+      sum += table[counts[scores[i]]];
+    }
+    return sum;
+  }
+
+  private int maxCountOrZero() {
+    return (size == 0) ? 0 : maxCount();
+  }
+
+  /** The number of fraction bits in the values of {@link #nLogN()}. */
+  static final int N_LOG_N_SHIFT = 40;
+
+  // Element k of values is k ln k in fixed point, and element k of increments is the difference
+  // between elements k+1 and k of values, so that the inner loop of nLogNWithin does one lookup.
+  private record NLogNTables(long[] values, long[] increments) {}
+
+  private static volatile NLogNTables nLogNTables = new NLogNTables(new long[1], new long[0]);
+
+  /**
+   * Returns a table whose element k is k ln k in fixed point, for every k up to at least
+   * {@code max}. The table grows as needed and is shared by all histograms.
+   *
+   * <p>The logarithm of k is the sum of the logarithms of its prime factors, and each of those is
+   * rounded to fixed point once. So ln k in the table is exactly the sum of the rounded logarithms
+   * of its prime factors. Since the logarithms of distinct primes are linearly independent over the
+   * rationals, two sums Σ k ln k are mathematically equal only if they have the same total
+   * multiplicity for every prime, and then the fixed-point sums are equal too. If we rounded each
+   * k ln k separately, 4 ln 4 and 2 × 2 ln 2 could round differently. The rounding error of each
+   * prime's logarithm is at most 2^-41, so the error in a sum over n candidates is at most about
+   * n lg n × 2^-41, far smaller than the difference between any two unequal sums we will see.
+   */
+  static long[] nLogNTable(int max) {
+    return nLogNTables(max).values();
+  }
+
+  // Element k is (k+1) ln (k+1) - k ln k in fixed point, for every k below at least max.
+  private static long[] nLogNIncrements(int max) {
+    return nLogNTables(max).increments();
+  }
+
+  private static NLogNTables nLogNTables(int max) {
+    NLogNTables tables = nLogNTables;
+    if (tables.increments().length >= max) {
+      return tables;
+    }
+    synchronized (Histogram.class) {
+      tables = nLogNTables;
+      if (tables.increments().length < max) {
+        long[] values = computeNLogNTable(Math.max(max, 2 * tables.increments().length) + 1);
+        long[] increments = new long[values.length - 1];
+        for (int k = 0; k < increments.length; k++) {
+          increments[k] = values[k + 1] - values[k];
+        }
+        tables = new NLogNTables(values, increments);
+        nLogNTables = tables;
+      }
+      return tables;
+    }
+  }
+
+  private static long[] computeNLogNTable(int length) {
+    // logs[k] is ln k in fixed point, computed from the smallest prime factor of k.
+    long[] logs = new long[length];
+    int[] smallestFactor = new int[length];
+    for (int k = 2; k < length; k++) {
+      if (smallestFactor[k] == 0) {
+        for (long multiple = k; multiple < length; multiple += k) {
+          if (smallestFactor[(int) multiple] == 0) {
+            smallestFactor[(int) multiple] = k;
+          }
+        }
+        logs[k] = Math.round(Math.log(k) * (1L << N_LOG_N_SHIFT));
+      } else {
+        int p = smallestFactor[k];
+        logs[k] = logs[p] + logs[k / p];
+      }
+    }
+    long[] table = new long[length];
+    for (int k = 1; k < length; k++) {
+      table[k] = k * logs[k];
+    }
+    return table;
+  }
+
+  /** Σ -k ln k over the counts k. See {@link Wordle#neuwirthGuesses} for why this is the entropy. */
+  double entropy() {
+    double sum = 0;
+    for (int i = 0; i < size; i++) {
+      double count = counts[scores[i]];
+      sum += -count * Math.log(count);
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,263 @@
+package com.github.eamonnmcmanus.wordle;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and timers for the hot paths of the solver. These are disabled unless the system
+ * property {@code wordle.metrics} is {@code true}. Every call site is guarded by
+ * {@code if (Metrics.ENABLED)}, and since {@link #ENABLED} is a static final field the JIT compiler
+ * removes the guarded code entirely when it is false.
+ *
+ * <p>When enabled, the metrics are registered as an MXBean called
+ * {@code com.github.eamonnmcmanus.wordle:type=Metrics}. If the system property
+ * {@code wordle.metrics.dumpSeconds} is also set, they are printed to {@code System.err} with that
+ * period.
+ */
+final class Metrics {
+  static final boolean ENABLED = Boolean.getBoolean("wordle.metrics");
+
+  private static final int MAX_TURNS = 16;
+
+  private static final LongAdder scoreCalls = new LongAdder();
+  private static final LongAdder cacheHits = new LongAdder();
+  private static final LongAdder cacheMisses = new LongAdder();
+  private static final LongAdder positions = new LongAdder();
+  private static final LongAdder consistentFilterNanos = new LongAdder();
+  private static final LongAdder allowedFilterNanos = new LongAdder();
+  private static final LongAdder[] turnCounts = newAdders(MAX_TURNS);
+  private static final LongAdder[] turnCandidates = newAdders(MAX_TURNS);
+  private static final LongAdder guesserCalls = new LongAdder();
+  private static final LongAdder guesserNanos = new LongAdder();
+  private static final LongAdder guessesBeforeCollapse = new LongAdder();
+  private static final LongAdder guessesCollapsed = new LongAdder();
+  private static final LongAdder guessEvaluations = new LongAdder();
+  private static final LongAdder guessEvaluationsCutShort = new LongAdder();
+  private static final Map<String, ThreadStats> threadStats = new ConcurrentHashMap<>();
+
+  private record ThreadStats(LongAdder games, LongAdder nanos) {}
+
+  static {
+    if (ENABLED) {
+      try {
+        ManagementFactory.getPlatformMBeanServer()
+            .registerMBean(new Bean(), new ObjectName("com.github.eamonnmcmanus.wordle:type=Metrics"));
+      } catch (JMException e) {
+        throw new ExceptionInInitializerError(e);
+      }
+      long dumpSeconds = Long.getLong("wordle.metrics.dumpSeconds", 0);
+      if (dumpSeconds > 0) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+          Thread t = new Thread(r, "wordle-metrics");
+          t.setDaemon(true);
+          return t;
+        });
+        executor.scheduleAtFixedRate(
+            () -> dump(System.err), dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+      }
+    }
+  }
+
+  private Metrics() {}
+
+  private static LongAdder[] newAdders(int n) {
+    LongAdder[] adders = new LongAdder[n];
+    Arrays.setAll(adders, i -> new LongAdder());
+    return adders;
+  }
+
+  static void scoreCalled() {
+    scoreCalls.increment();
+  }
+
+  static void cacheLookup(boolean hit) {
+    (hit ? cacheHits : cacheMisses).increment();
+  }
+
+  /**
+   * Records the construction of a {@link Wordle} position.
+   *
+   * @param turn the number of guesses already made
+   * @param candidates the number of solutions consistent with those guesses
+   * @param consistentNanos the time taken to find the consistent solutions
+   * @param allowedNanos the time taken to find the allowed guesses
+   */
+  static void position(int turn, int candidates, long consistentNanos, long allowedNanos) {
+    positions.increment();
+    consistentFilterNanos.add(consistentNanos);
+    allowedFilterNanos.add(allowedNanos);
+    int i = Math.min(turn, MAX_TURNS - 1);
+    turnCounts[i].increment();
+    turnCandidates[i].add(candidates);
+  }
+
+  static void guesserCalled(long nanos) {
+    guesserCalls.increment();
+    guesserNanos.add(nanos);
+  }
+
+  /**
+   * Records that {@code collapsed} of the {@code allowed} guesses in a position did not need to be
+   * evaluated because they partition the consistent words in the same way as another guess.
+   */
+  static void guessesCollapsed(int allowed, int collapsed) {
+    guessesBeforeCollapse.add(allowed);
+    guessesCollapsed.add(collapsed);
+  }
+
+  /**
+   * Records that {@code evaluated} guesses were evaluated against the consistent words of a
+   * position, of which {@code cutShort} were abandoned because they could not beat the best guess.
+   */
+  static void guessesEvaluated(int evaluated, int cutShort) {
+    guessEvaluations.add(evaluated);
+    guessEvaluationsCutShort.add(cutShort);
+  }
+
+  /** Records that the current thread solved {@code games} games in {@code nanos} nanoseconds. */
+  static void gamesSolved(int games, long nanos) {
+    ThreadStats stats = threadStats.computeIfAbsent(
+        Thread.currentThread().getName(), k -> new ThreadStats(new LongAdder(), new LongAdder()));
+    stats.games.add(games);
+    stats.nanos.add(nanos);
+  }
+
+  static void dump(PrintStream out) {
+    Bean bean = new Bean();
+    out.printf(
+        "metrics: scores %d cache hits %d misses %d positions %d consistent filter %.3fs"
+            + " allowed filter %.3fs guesser calls %d guesser time %.3fs"
+            + " guesses %d collapsed %d guess evaluations %d cut short %d\n",
+        bean.getScoreCalls(),
+        bean.getCacheHits(),
+        bean.getCacheMisses(),
+        bean.getPositions(),
+        bean.getConsistentFilterNanos() / 1e9,
+        bean.getAllowedFilterNanos() / 1e9,
+        bean.getGuesserCalls(),
+        bean.getGuesserNanos() / 1e9,
+        bean.getGuessesBeforeCollapse(),
+        bean.getGuessesCollapsed(),
+        bean.getGuessEvaluations(),
+        bean.getGuessEvaluationsCutShort());
+    out.printf("  mean candidates by turn %s\n", Arrays.toString(bean.getMeanCandidatesByTurn()));
+    bean.getGamesPerSecondByThread().forEach(
+        (thread, rate) -> out.printf("  %s: %.2f games/s\n", thread, rate));
+  }
+
+  private static class Bean implements MetricsMXBean {
+    @Override
+    public long getScoreCalls() {
+      return scoreCalls.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+      return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+      return cacheMisses.sum();
+    }
+
+    @Override
+    public long getPositions() {
+      return positions.sum();
+    }
+
+    @Override
+    public long getConsistentFilterNanos() {
+      return consistentFilterNanos.sum();
+    }
+
+    @Override
+    public long getAllowedFilterNanos() {
+      return allowedFilterNanos.sum();
+    }
+
+    @Override
+    public double[] getMeanCandidatesByTurn() {
+      int last = MAX_TURNS;
+      while (last > 0 && turnCounts[last - 1].sum() == 0) {
+        last--;
+      }
+      double[] means = new double[last];
+      for (int i = 0; i < last; i++) {
+        long count = turnCounts[i].sum();
+        means[i] = (count == 0) ? 0 : (double) turnCandidates[i].sum() / count;
+      }
+      return means;
+    }
+
+    @Override
+    public long getGuesserCalls() {
+      return guesserCalls.sum();
+    }
+
+    @Override
+    public long getGuesserNanos() {
+      return guesserNanos.sum();
+    }
+
+    @Override
+    public long getGuessesBeforeCollapse() {
+      return guessesBeforeCollapse.sum();
+    }
+
+    @Override
+    public long getGuessesCollapsed() {
+      return guessesCollapsed.sum();
+    }
+
+    @Override
+    public long getGuessEvaluations() {
+      return guessEvaluations.sum();
+    }
+
+    @Override
+    public long getGuessEvaluationsCutShort() {
+      return guessEvaluationsCutShort.sum();
+    }
+
+    @Override
+    public Map<String, Long> getGamesByThread() {
+      ImmutableMap.Builder<String, Long> builder = ImmutableMap.builder();
+      threadStats.forEach((thread, stats) -> builder.put(thread, stats.games.sum()));
+      return builder.buildOrThrow();
+    }
+
+    @Override
+    public Map<String, Double> getGamesPerSecondByThread() {
+      ImmutableMap.Builder<String, Double> builder = ImmutableMap.builder();
+      threadStats.forEach((thread, stats) -> {
+        long nanos = stats.nanos.sum();
+        builder.put(thread, (nanos == 0) ? 0.0 : stats.games.sum() * 1e9 / nanos);
+      });
+      return builder.buildOrThrow();
+    }
+
+    @Override
+    public void reset() {
+      for (LongAdder adder : new LongAdder[] {
+          scoreCalls, cacheHits, cacheMisses, positions, consistentFilterNanos, allowedFilterNanos,
+          guesserCalls, guesserNanos, guessesBeforeCollapse, guessesCollapsed, guessEvaluations,
+          guessEvaluationsCutShort}) {
+        adder.reset();
+      }
+      Arrays.stream(turnCounts).forEach(LongAdder::reset);
+      Arrays.stream(turnCandidates).forEach(LongAdder::reset);
+      threadStats.clear();
+    }
+  }
+}
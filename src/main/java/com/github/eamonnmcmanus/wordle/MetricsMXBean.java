@@ -0,0 +1,49 @@
+package com.github.eamonnmcmanus.wordle;
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link Metrics}. Times are in nanoseconds.
+ */
+public interface MetricsMXBean {
+  long getScoreCalls();
+
+  long getCacheHits();
+
+  long getCacheMisses();
+
+  long getPositions();
+
+  long getConsistentFilterNanos();
+
+  long getAllowedFilterNanos();
+
+  /** The mean number of consistent words at each turn, indexed by the number of guesses made. */
+  double[] getMeanCandidatesByTurn();
+
+  long getGuesserCalls();
+
+  long getGuesserNanos();
+
+  /** The total number of allowed guesses in the positions evaluated by the guessers. */
+  long getGuessesBeforeCollapse();
+
+  /**
+   * The number of allowed guesses that were not evaluated because another guess was known to
+   * partition the consistent words the same way.
+   */
+  long getGuessesCollapsed();
+
+  long getGuessEvaluations();
+
+  /** The number of guess evaluations that stopped early because the guess could not be the best. */
+  long getGuessEvaluationsCutShort();
+
+  /** The number of games solved by each thread. */
+  Map<String, Long> getGamesByThread();
+
+  /** The number of games solved per second by each thread, over the time it spent solving. */
+  Map<String, Double> getGamesPerSecondByThread();
+
+  void reset();
+}
@@ -0,0 +1,246 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * A position in a game with several boards that share guesses, like Dordle (2 boards) or Quordle
+ * (4 boards). Each board has its own solution, so the same guess gets a different score on each
+ * board. Each board is represented by the {@link ScoreList} of the scores it has received, and
+ * boards that have been solved no longer count.
+ *
+ * <p>A guess partitions the possible combinations of solutions according to the tuple of scores it
+ * would get on the unsolved boards. Since the solutions of the boards are independent, the part for
+ * a tuple of scores is the product of the parts for each score on each board. That means that the
+ * metrics of the joint partition can be computed from a {@link Histogram} for each board, without
+ * ever forming the tuples. The biggest joint part is the product of the biggest part on each
+ * board; the sum of the squares of the joint part sizes is the product of the sums of squares on
+ * each board; and the entropy of the joint partition is the sum of the entropies on each board.
+ *
+ * <p>The metrics are compared exactly, so that ties are broken the same way however large the
+ * values get. With several boards the products soon exceed the range of a {@code long}, and then
+ * they are computed as {@link BigInteger}s.
+ */
+class MultiWordle {
+  /** The metric used to choose a guess, named after the corresponding single-board guesser. */
+  enum Metric {
+    /** Minimize the biggest joint part, like {@link Wordle#knuthGuesses}. */
+    KNUTH,
+    /** Minimize the sum of squares of the joint part sizes, like {@link Wordle#irvingGuesses}. */
+    IRVING,
+    /** Maximize the entropy of the joint partition, like {@link Wordle#neuwirthGuesses}. */
+    NEUWIRTH,
+  }
+
+  private static final ThreadLocal<Histogram> HISTOGRAMS = ThreadLocal.withInitial(Histogram::new);
+
+  private final Dictionary dict;
+  private final ScoreFactory scoreFactory;
+  // The possible solutions of each unsolved board, as bits over guess ordinals.
+  private final ImmutableList<BitSet> candidateSets;
+  // The union of candidateSets.
+  private final BitSet consistentOrdinals = new BitSet();
+  // The distinct sets in candidateSets, as arrays of word codes for the inner loop. Before any
+  // guess, and often afterwards, several boards have the same candidates, and there's no point in
+  // tallying the same histogram more than once.
+  private final int[][] candidates;
+  // How many boards have each of the sets in candidates.
+  private final int[] multiplicities;
+  // For each of the sets in candidates, the product of the sizes of the others. This puts the
+  // Neuwirth terms of the different sets over a common denominator.
+  private final BigInteger[] neuwirthScales;
+
+  /**
+   * Constructs the position where board i has received the scores in {@code boards.get(i)}. Every
+   * board must have received scores for the same guesses, except that a board receives no more
+   * scores once it is solved.
+   */
+  MultiWordle(Dictionary dict, ScoreFactory scoreFactory, List<ScoreList> boards) {
+    this.dict = dict;
+    this.scoreFactory = scoreFactory;
+    ImmutableList.Builder<BitSet> candidateSets = ImmutableList.builder();
+    for (ScoreList board : boards) {
+      if (!board.solved()) {
+        BitSet set = dict.solutionOrdinals();
+        dict.guessIndex().retainConsistent(board, set);
+        checkArgument(!set.isEmpty(), "No solution is consistent with %s", board);
+        candidateSets.add(set);
+        consistentOrdinals.or(set);
+      }
+    }
+    this.candidateSets = candidateSets.build();
+    Map<BitSet, Integer> distinct = new LinkedHashMap<>();
+    for (BitSet set : this.candidateSets) {
+      distinct.merge(set, 1, Integer::sum);
+    }
+    this.candidates = distinct.keySet().stream()
+        .map(set -> set.stream().map(dict::guessCode).toArray())
+        .toArray(int[][]::new);
+    this.multiplicities = distinct.values().stream().mapToInt(Integer::intValue).toArray();
+    this.neuwirthScales = new BigInteger[candidates.length];
+    for (int i = 0; i < candidates.length; i++) {
+      BigInteger scale = BigInteger.ONE;
+      for (int j = 0; j < candidates.length; j++) {
+        if (j != i) {
+          scale = scale.multiply(BigInteger.valueOf(candidates[j].length));
+        }
+      }
+      neuwirthScales[i] = scale;
+    }
+  }
+
+  /** The number of boards that have not been solved. */
+  int unsolvedBoards() {
+    return candidateSets.size();
+  }
+
+  /** The possible solutions of each unsolved board. */
+  ImmutableList<ImmutableList<Integer>> candidates() {
+    return candidateSets.stream()
+        .map(set -> set.stream().mapToObj(dict::guessCode).collect(ImmutableList.toImmutableList()))
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  /**
+   * Returns the best guesses according to {@code metric}, at most 10 of them. As with the
+   * single-board guessers, a guess that could be the solution of some board is preferred to one that
+   * can't, other things being equal. The guesses are evaluated in parallel if {@code parallel}.
+   */
+  ImmutableList<Integer> guesses(Metric metric, boolean parallel) {
+    checkArgument(!candidateSets.isEmpty(), "All boards are solved");
+    int n = dict.guessCount();
+    BigInteger[] values = new BigInteger[n];
+    IntStream ordinals = IntStream.range(0, n);
+    if (parallel) {
+      ordinals = ordinals.parallel();
+    }
+    ordinals.forEach(i -> values[i] = evaluate(metric, HISTOGRAMS.get(), dict.guessCode(i)));
+    // As in Wordle.irvingGuesses, the selection is sequential so that ties are broken the same way
+    // however the evaluation was split.
+    List<Integer> bestGuesses = new ArrayList<>();
+    BigInteger bestValue = null;
+    boolean bestIsConsistent = false;
+    for (int i = 0; i < n; i++) {
+      boolean guessIsConsistent = consistentOrdinals.get(i);
+      int cmp = (bestValue == null) ? -1 : values[i].compareTo(bestValue);
+      if (cmp < 0 || (cmp == 0 && guessIsConsistent && !bestIsConsistent)) {
+        bestGuesses.clear();
+        bestGuesses.add(dict.guessCode(i));
+        bestValue = values[i];
+        bestIsConsistent = guessIsConsistent;
+      } else if (cmp == 0 && bestGuesses.size() < 10 && guessIsConsistent == bestIsConsistent) {
+        bestGuesses.add(dict.guessCode(i));
+      }
+    }
+    return ImmutableList.copyOf(bestGuesses);
+  }
+
+  /**
+   * Computes the value of {@code metric} for {@code guess}. Smaller values are better. For
+   * {@link Metric#NEUWIRTH} the value is Σ m_i S_i / N_i over the distinct candidate sets i, where
+   * m_i is the number of boards with that set, N_i is its size, and S_i is the fixed-point
+   * {@link Histogram#nLogN()} of the guess's partition of the set. The value is multiplied by the
+   * product of the N_i so that it is an integer.
+   */
+  BigInteger evaluate(Metric metric, int guess) {
+    return evaluate(metric, HISTOGRAMS.get(), guess);
+  }
+
+  private BigInteger evaluate(Metric metric, Histogram histogram, int guess) {
+    if (metric == Metric.NEUWIRTH) {
+      // The entropy of a board with N candidates is ln N - (1/N) Σ k ln k, where the sum is over
+      // the part sizes k. The joint entropy is the sum over the boards, and the ln N terms don't
+      // depend on the guess, so maximizing it means minimizing the sum of (1/N) Σ k ln k.
+      BigInteger value = BigInteger.ZERO;
+      for (int i = 0; i < candidates.length; i++) {
+        histogram.tally(scoreFactory, guess, candidates[i]);
+        BigInteger term = BigInteger.valueOf(histogram.nLogN() * multiplicities[i]);
+        value = value.add(term.multiply(neuwirthScales[i]));
+      }
+      return value;
+    }
+    long value = 1;
+    BigInteger big = null; // the value, once it no longer fits in a long
+    for (int i = 0; i < candidates.length; i++) {
+      histogram.tally(scoreFactory, guess, candidates[i]);
+      long factor = (metric == Metric.KNUTH) ? histogram.maxCount() : histogram.sumOfSquares();
+      for (int j = 0; j < multiplicities[i]; j++) {
+        if (big == null) {
+          try {
+            value = Math.multiplyExact(value, factor);
+            continue;
+          } catch (ArithmeticException e) {
+            big = BigInteger.valueOf(value);
+          }
+        }
+        big = big.multiply(BigInteger.valueOf(factor));
+      }
+    }
+    return (big == null) ? BigInteger.valueOf(value) : big;
+  }
+
+  /**
+   * Plays a game where the boards have the given solutions, always choosing the first of the best
+   * guesses according to {@code metric}. Returns the guesses made.
+   */
+  static ImmutableList<Integer> solve(
+      Dictionary dict, ScoreFactory scoreFactory, Metric metric, boolean parallel, int... actuals) {
+    List<ScoreList> boards = new ArrayList<>();
+    for (int i = 0; i < actuals.length; i++) {
+      boards.add(ScoreList.EMPTY);
+    }
+    ImmutableList.Builder<Integer> guesses = ImmutableList.builder();
+    while (true) {
+      MultiWordle position = new MultiWordle(dict, scoreFactory, boards);
+      if (position.unsolvedBoards() == 0) {
+        return guesses.build();
+      }
+      int guess = position.guesses(metric, parallel).get(0);
+      guesses.add(guess);
+      for (int i = 0; i < actuals.length; i++) {
+        ScoreList board = boards.get(i);
+        if (!board.solved()) {
+          boards.set(i, board.plus(guess, scoreFactory.score(guess, actuals[i])));
+        }
+      }
+    }
+  }
+
+  /**
+   * Plays games with randomly chosen solutions. The arguments are the number of boards, the number
+   * of games, and optionally the metric.
+   */
+  public static void main(String[] args) {
+    int boards = Integer.parseInt(args[0]);
+    int games = Integer.parseInt(args[1]);
+    Metric metric = (args.length > 2) ? Metric.valueOf(args[2]) : Metric.IRVING;
+    Dictionary dict = Dictionary.create();
+    int[] solutions = dict.solutionWords().stream().mapToInt(Integer::intValue).toArray();
+    Random random = new Random(1234);
+    long total = 0;
+    int max = 0;
+    long startTime = System.nanoTime();
+    for (int game = 0; game < games; game++) {
+      int[] actuals = random.ints(boards, 0, solutions.length).map(i -> solutions[i]).toArray();
+      ImmutableList<Integer> guesses = solve(dict, Score::of, metric, true, actuals);
+      System.out.printf(
+          "%s: %s\n",
+          IntStream.of(actuals).mapToObj(Dictionary::decode).toList(),
+          guesses.stream().map(Dictionary::decode).toList());
+      total += guesses.size();
+      max = Math.max(max, guesses.size());
+    }
+    System.out.printf(
+        "%d games with %d boards: average %.3f max %d, %.2fs per game\n",
+        games, boards, (double) total / games, max, (System.nanoTime() - startTime) / 1e9 / games);
+  }
+}
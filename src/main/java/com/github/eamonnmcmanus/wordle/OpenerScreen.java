@@ -0,0 +1,301 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.github.eamonnmcmanus.wordle.Wordle.TotalAndMax;
+import com.google.common.collect.ImmutableList;
+import com.google.common.math.IntMath;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Screens starting words before playing every game with them. Solving every game for one starting
+ * word takes many seconds, but most starting words are clearly worse than the best one after a
+ * single partition step. So we first compute, for every guess, the partition of the solutions that
+ * it makes as an opener. From the sizes of the parts we can compute a lower bound on the
+ * {@link TotalAndMax} that any strategy could achieve with that opener. Then we go through the
+ * candidate openers, most promising first. An opener whose bound shows that it can't do better
+ * than the best result so far is pruned. Otherwise we compute a tighter bound by looking at the
+ * best second guesses for each part, and only if that doesn't prune it either do we solve every
+ * game.
+ *
+ * <p>Both bounds rest on the same observation. If the consistent words are split into parts by a
+ * guess, then the next guess can solve at most one word, and the guess after that at most one word
+ * from each part made by the next guess. Every other word needs at least two more guesses. The
+ * first bound only knows that a guess can't make more parts than there are scores, and the second
+ * one finds out how many parts the allowed guesses actually make. See
+ * {@link Wordle#maxTwoGuessSplit()}.
+ */
+class OpenerScreen {
+  /** The partition of the solutions made by an opener, and the lower bound that it implies. */
+  record FirstTurn(
+      int opener,
+      int parts,
+      int maxPart,
+      long sumOfSquares,
+      double entropyBits,
+      TotalAndMax bound) {}
+
+  enum Outcome {
+    /** Every game was played with the opener. */
+    SOLVED,
+    /** The bound from the sizes of the parts was not good enough. */
+    PRUNED_BY_PARTITION,
+    /** The bound from the best second guesses for each part was not good enough. */
+    PRUNED_BY_LOOKAHEAD,
+  }
+
+  /**
+   * The outcome for one opener. If it was solved, {@code result} is the result of playing every
+   * game with it. If it was pruned, {@code bound} is the bound that pruned it and {@code best} is
+   * the result of the opener that it could not beat.
+   */
+  record Row(
+      FirstTurn firstTurn, Outcome outcome, TotalAndMax bound, TotalAndMax result, Best best) {}
+
+  /** The best result so far, and the opener that achieved it. */
+  record Best(int opener, TotalAndMax result) {}
+
+  private static final ThreadLocal<Histogram> HISTOGRAMS = ThreadLocal.withInitial(Histogram::new);
+
+  private final Dictionary dict;
+  private final ScoreFactory scoreFactory;
+  private final int[] solutions;
+  // The most parts that a guess can split a set of words into, which is the number of possible
+  // scores. As in Absurdle, the scores with one ochre letter and all the rest green can't happen.
+  private final int maxParts;
+
+  OpenerScreen(Dictionary dict, ScoreFactory scoreFactory) {
+    this.dict = dict;
+    this.scoreFactory = scoreFactory;
+    this.solutions = dict.solutionWords().stream().mapToInt(Integer::intValue).toArray();
+    this.maxParts = IntMath.pow(3, dict.wordLength()) - dict.wordLength();
+  }
+
+  /** Computes the {@link FirstTurn} of every guess, indexed by ordinal. */
+  ImmutableList<FirstTurn> firstTurns() {
+    return IntStream.range(0, dict.guessCount())
+        .parallel()
+        .mapToObj(i -> firstTurn(dict.guessCode(i)))
+        .collect(toImmutableList());
+  }
+
+  FirstTurn firstTurn(int opener) {
+    Histogram histogram = HISTOGRAMS.get();
+    histogram.tally(scoreFactory, opener, solutions);
+    int solvedSlots = Score.solved(dict.wordLength()).slots();
+    long total = 0;
+    int max = 0;
+    for (int i = 0; i < histogram.size(); i++) {
+      int slots = histogram.score(i);
+      int n = histogram.count(slots);
+      if (slots == solvedSlots) {
+        total += 1;
+        max = Math.max(max, 1);
+      } else {
+        // No guess can split the part into more than min(n, maxParts) parts, and the guess can
+        // only be one of the n words if there is more than one part.
+        int k = Math.min(n, maxParts) + 1;
+        total += partBound(n, k);
+        max = Math.max(max, partMaxBound(n, k));
+      }
+    }
+    double n = solutions.length;
+    return new FirstTurn(
+        opener,
+        histogram.size(),
+        histogram.maxCount(),
+        histogram.sumOfSquares(),
+        (Math.log(n) + histogram.entropy() / n) / Math.log(2),
+        new TotalAndMax(total, max));
+  }
+
+  // The least total number of guesses for a part of n words after the opener, if the best second
+  // guess makes k in terms of Wordle.maxTwoGuessSplit().
+  private static long partBound(int n, int k) {
+    return 4L * n - k;
+  }
+
+  // The least number of guesses for the worst word in the same part.
+  private static int partMaxBound(int n, int k) {
+    if (n > k) {
+      return 4;
+    }
+    return (n > 1) ? 3 : 2;
+  }
+
+  /**
+   * Computes a lower bound on the result of any strategy that starts with {@code opener}, in the
+   * default mode, by finding the best second guesses for each part of the opener's partition.
+   */
+  TotalAndMax lookaheadBound(int opener) {
+    Histogram histogram = new Histogram();
+    histogram.tally(scoreFactory, opener, solutions);
+    Score solved = Score.solved(dict.wordLength());
+    long total = 0;
+    int max = 0;
+    for (int i = 0; i < histogram.size(); i++) {
+      int slots = histogram.score(i);
+      int n = histogram.count(slots);
+      if (slots == solved.slots()) {
+        total += 1;
+        max = Math.max(max, 1);
+      } else {
+        ScoreList scores = ScoreList.EMPTY.plus(opener, new Score(slots, dict.wordLength()));
+        Wordle wordle = new Wordle(
+            dict, scoreFactory, scores, Wordle.DEFAULT_MODE, false, Workspace.forThread());
+        int k = wordle.maxTwoGuessSplit();
+        total += partBound(n, k);
+        max = Math.max(max, partMaxBound(n, k));
+      }
+    }
+    return new TotalAndMax(total, max);
+  }
+
+  // Whether an opener with the given bound can't do at least as well as best. Results are
+  // compared by total and then by max.
+  private static boolean cannotMatch(TotalAndMax bound, Best best) {
+    if (best == null) {
+      return false;
+    }
+    TotalAndMax result = best.result();
+    return bound.total() > result.total()
+        || (bound.total() == result.total() && bound.max() > result.max());
+  }
+
+  private static boolean better(TotalAndMax a, TotalAndMax b) {
+    return a.total() < b.total() || (a.total() == b.total() && a.max() < b.max());
+  }
+
+  /**
+   * Screens {@code openers}, solving every game with the ones that can't be pruned. The openers are
+   * tried in order of increasing sum of squares, and {@code threads} of them at a time. Each row is
+   * passed to {@code progress} when it is ready, and the rows are returned in the order the
+   * openers were tried.
+   */
+  ImmutableList<Row> screen(
+      Wordle.Guesser guesser, List<Integer> openers, int threads, Consumer<Row> progress)
+      throws InterruptedException, ExecutionException {
+    List<FirstTurn> ordered = openers.parallelStream()
+        .map(this::firstTurn)
+        .sorted(Comparator.comparingLong(FirstTurn::sumOfSquares)
+            .thenComparingInt(t -> dict.guessOrdinal(t.opener())))
+        .toList();
+    AtomicReference<Best> best = new AtomicReference<>();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Row>> futures = new ArrayList<>();
+      for (FirstTurn firstTurn : ordered) {
+        futures.add(executor.submit(() -> {
+          Row row = screen(guesser, firstTurn, best);
+          synchronized (progress) {
+            progress.accept(row);
+          }
+          return row;
+        }));
+      }
+      ImmutableList.Builder<Row> rows = ImmutableList.builder();
+      for (Future<Row> future : futures) {
+        rows.add(future.get());
+      }
+      return rows.build();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Row screen(Wordle.Guesser guesser, FirstTurn firstTurn, AtomicReference<Best> best) {
+    int opener = firstTurn.opener();
+    Best current = best.get();
+    if (cannotMatch(firstTurn.bound(), current)) {
+      return new Row(firstTurn, Outcome.PRUNED_BY_PARTITION, firstTurn.bound(), null, current);
+    }
+    TotalAndMax lookahead = lookaheadBound(opener);
+    current = best.get();
+    if (cannotMatch(lookahead, current)) {
+      return new Row(firstTurn, Outcome.PRUNED_BY_LOOKAHEAD, lookahead, null, current);
+    }
+    TotalAndMax result = Wordle.solveRange(dict, guesser, opener, 0, solutions.length);
+    Best candidate = new Best(opener, result);
+    best.accumulateAndGet(
+        candidate, (a, b) -> (a == null || better(b.result(), a.result())) ? b : a);
+    return new Row(firstTurn, Outcome.SOLVED, lookahead, result, null);
+  }
+
+  static String format(Row row) {
+    FirstTurn t = row.firstTurn();
+    String metrics = String.format(
+        "%s parts %d max %d sumsq %d entropy %.3f",
+        Dictionary.decode(t.opener()), t.parts(), t.maxPart(), t.sumOfSquares(), t.entropyBits());
+    return switch (row.outcome()) {
+      case SOLVED -> String.format(
+          "%s bound %d/%d solved %d/%d",
+          metrics,
+          row.bound().total(),
+          row.bound().max(),
+          row.result().total(),
+          row.result().max());
+      case PRUNED_BY_PARTITION, PRUNED_BY_LOOKAHEAD -> String.format(
+          "%s pruned by %s bound %d/%d, best is %d/%d from %s",
+          metrics,
+          (row.outcome() == Outcome.PRUNED_BY_PARTITION) ? "partition" : "lookahead",
+          row.bound().total(),
+          row.bound().max(),
+          row.best().result().total(),
+          row.best().result().max(),
+          Dictionary.decode(row.best().opener()));
+    };
+  }
+
+  /**
+   * Screens openers with the given guesser (default irving). The openers are the remaining
+   * arguments, or every solution word if there are none.
+   */
+  public static void main(String[] args) throws Exception {
+    Dictionary dict = Dictionary.create();
+    OpenerScreen screen = new OpenerScreen(dict, Wordle.DEFAULT_SCORE_FACTORY);
+    long startTime = System.nanoTime();
+    ImmutableList<FirstTurn> firstTurns = screen.firstTurns();
+    System.out.printf(
+        "first-turn partitions of %d guesses in %.1fs\n",
+        firstTurns.size(), (System.nanoTime() - startTime) / 1e9);
+    List<Comparator<FirstTurn>> rankings = List.of(
+        Comparator.comparingInt(FirstTurn::maxPart),
+        Comparator.comparingLong(FirstTurn::sumOfSquares),
+        Comparator.comparingDouble(FirstTurn::entropyBits).reversed());
+    List<String> names = List.of("max part", "sum of squares", "entropy");
+    for (int i = 0; i < rankings.size(); i++) {
+      System.out.printf(
+          "best by %s: %s\n",
+          names.get(i),
+          firstTurns.stream()
+              .sorted(rankings.get(i))
+              .limit(5)
+              .map(t -> Dictionary.decode(t.opener()))
+              .toList());
+    }
+    String guesserName = (args.length > 0) ? args[0] : "irving";
+    Wordle.Guesser guesser = DistributedSolve.GUESSERS.get(guesserName);
+    List<Integer> openers = (args.length > 1)
+        ? IntStream.range(1, args.length).mapToObj(i -> Dictionary.encode(args[i])).toList()
+        : dict.solutionWords().asList();
+    ImmutableList<Row> rows = screen.screen(
+        guesser,
+        openers,
+        Runtime.getRuntime().availableProcessors(),
+        row -> System.out.println(format(row)));
+    for (Outcome outcome : Outcome.values()) {
+      System.out.printf(
+          "%s: %d\n", outcome, rows.stream().filter(row -> row.outcome() == outcome).count());
+    }
+    System.out.printf("total time %.1fs\n", (System.nanoTime() - startTime) / 1e9);
+  }
+}
@@ -33,16 +33,50 @@ class Score {
 
   static final Score SOLVED = parse("+++++");
 
+  /**
+   * One more than the largest possible value of {@link #slots()} for a word that can be encoded as an
+   * {@code int}.
+   */
+  static final int SLOT_VALUES = 1 << (2 * Dictionary.MAX_LENGTH);
+
   // bits 0 and 1 are the score for the first letter, 2 and 3 for the second, etc.
   private final int slots;
+  // The number of letters. Since a grey letter scores 0, this can't be deduced from the slots.
+  private final int length;
 
   Score(int slots) {
+    this(slots, Dictionary.DEFAULT_LENGTH);
+  }
+
+  Score(int slots, int length) {
     this.slots = slots;
+    this.length = length;
+  }
+
+  int slots() {
+    return slots;
+  }
+
+  int length() {
+    return length;
+  }
+
+  /** The score where every letter is green, for words of the given length. */
+  static Score solved(int length) {
+    return (length == Dictionary.DEFAULT_LENGTH) ? SOLVED : new Score(solvedSlots(length), length);
+  }
+
+  private static int solvedSlots(int length) {
+    return 0xaaa >> (2 * (Dictionary.MAX_LENGTH - length));
+  }
+
+  boolean isSolved() {
+    return slots == solvedSlots(length);
   }
 
   @Override
   public boolean equals(Object obj) {
-    return obj instanceof Score that && this.slots == that.slots;
+    return obj instanceof Score that && this.slots == that.slots && this.length == that.length;
   }
 
   @Override
@@ -52,8 +86,8 @@ class Score {
 
   @Override
   public String toString() {
-    char[] chars = new char[5];
-    for (int i = 0; i < 5; i++) {
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
       int code = (slots >> (i * 2)) & 3;
       chars[i] = Colour.values[code].toString().charAt(0);
     }
@@ -62,7 +96,7 @@ class Score {
 
   int matches() {
     int count = 0;
-    for (int i = 0; i < 5; i++) {
+    for (int i = 0; i < length; i++) {
       int code = (slots >> (i * 2)) & 3;
       if (code > 0) {
         count++;
@@ -73,7 +107,7 @@ class Score {
 
   int exactMatches() {
     int count = 0;
-    for (int i = 0; i < 5; i++) {
+    for (int i = 0; i < length; i++) {
       int code = (slots >> (i * 2)) & 3;
       if (code == Colour.GREEN.ordinal()) {
         count++;
@@ -82,10 +116,13 @@ class Score {
     return count;
   }
 
+  // The masks are in terms of int word codes, so they are only meaningful for words of at most
+  // Dictionary.MAX_LENGTH letters.
+
   // TODO: apply techniques from Knuth 4A (p152) here.
   int greenMask() {
     int mask = 0;
-    for (int i = 0; i < 5; i++) {
+    for (int i = 0; i < length; i++) {
       int code = (slots >> (i * 2)) & 3;
       if (code == Colour.GREEN.ordinal()) {
         mask |= 31 << (i * 5);
@@ -96,7 +133,7 @@ class Score {
 
   int ochreMask() {
     int mask = 0;
-    for (int i = 0; i < 5; i++) {
+    for (int i = 0; i < length; i++) {
       int code = (slots >> (i * 2)) & 3;
       if (code == Colour.OCHRE.ordinal()) {
         mask |= 31 << (i * 5);
@@ -106,15 +143,37 @@ class Score {
   }
 
   static Score of(String attempt, String actual) {
-    assert attempt.length() == 5;
-    assert actual.length() == 5;
+    checkArgument(attempt.length() == actual.length(), "%s and %s differ in length", attempt, actual);
     assert Colour.GREY.ordinal() == 0;
     return of(Dictionary.encode(attempt), Dictionary.encode(actual));
   }
 
   static Score of(int attemptCode, int actualCode) {
+    return new Score(slots(attemptCode, actualCode), Dictionary.length(attemptCode));
+  }
+
+  /**
+   * Returns the {@link #slots()} of {@code Score.of(attemptCode, actualCode)}. The two words must
+   * have the same length.
+   */
+  static int slots(int attemptCode, int actualCode) {
+    if (Metrics.ENABLED) {
+      Metrics.scoreCalled();
+    }
+    // Each case calls slots with a constant length, which the JIT compiler propagates into the loops
+    // of the inlined copy. That gives each common length the same code as if it were hard-wired.
+    int length = Dictionary.length(attemptCode);
+    return switch (length) {
+      case 4 -> slots(attemptCode, actualCode, 4);
+      case 5 -> slots(attemptCode, actualCode, 5);
+      case 6 -> slots(attemptCode, actualCode, 6);
+      default -> slots(attemptCode, actualCode, length);
+    };
+  }
+
+  private static int slots(int attemptCode, int actualCode, int length) {
     int slots = 0;
-    for (int i = 0, shift = 0; i < 5; i++, shift += 5) {
+    for (int i = 0, shift = 0; i < length; i++, shift += 5) {
       int attemptC = (attemptCode >> shift) & 31;
       int actualC = (actualCode >> shift) & 31;
       if (attemptC == actualC) {
@@ -125,11 +184,11 @@ class Score {
       }
     }
     for (int attemptI = 0, attemptShift = 0;
-        attemptI < 5 && attemptCode != 0;
+        attemptI < length && attemptCode != 0;
         attemptI++, attemptShift += 5) {
       int attemptC = (attemptCode >> attemptShift) & 31;
       for (int actualI = 0, actualShift = 0;
-          actualI < 5;
+          actualI < length;
           actualI++, actualShift += 5) {
         int actualC = (actualCode >> actualShift) & 31;
         if (attemptC == actualC && attemptC != 0) {
@@ -140,16 +199,22 @@ class Score {
         }
       }
     }
-    return new Score(slots);
+    return slots;
   }
 
   static Score parse(String s) {
-    checkArgument(s.length() == 5, "should have length 5, not %s: %s", s.length(), s);
+    checkArgument(
+        s.length() >= 1 && s.length() <= Dictionary.MAX_LENGTH,
+        "should have length between 1 and %s, not %s: %s",
+        Dictionary.MAX_LENGTH,
+        s.length(),
+        s);
     int slots = 0;
-    for (int i = 0; i < 5; i++) {
+    for (int i = 0; i < s.length(); i++) {
       Colour colour = CHAR_TO_COLOUR.get(s.charAt(i));
+      checkArgument(colour != null, "bad score character '%s': %s", s.charAt(i), s);
       slots |= colour.ordinal() << (i * 2);
     }
-    return new Score(slots);
+    return new Score(slots, s.length());
   }
 }
@@ -31,6 +31,10 @@ class ScoreCache implements ScoreFactory {
 
   @Override
   public Score score(int attempt, int actual) {
-    return scoreCache.get(mapKey(attempt, actual));
+    Score score = scoreCache.get(mapKey(attempt, actual));
+    if (Metrics.ENABLED) {
+      Metrics.cacheLookup(score != null);
+    }
+    return (score == null) ? Score.of(attempt, actual) : score;
   }
 }
@@ -6,4 +6,9 @@ package com.github.eamonnmcmanus.wordle;
 @FunctionalInterface
 interface ScoreFactory {
   Score score(int attempt, int actual);
+
+  /** Returns {@code score(attempt, actual).slots()}, possibly without allocating a {@link Score}. */
+  default int slots(int attempt, int actual) {
+    return score(attempt, actual).slots();
+  }
 }
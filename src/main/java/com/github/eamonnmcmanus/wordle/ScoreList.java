@@ -38,6 +38,21 @@ abstract class ScoreList {
     boolean containsWord(int word) {
       return false;
     }
+
+    @Override
+    int guess() {
+      throw new IllegalStateException("Empty score list");
+    }
+
+    @Override
+    Score score() {
+      throw new IllegalStateException("Empty score list");
+    }
+
+    @Override
+    ScoreList previous() {
+      throw new IllegalStateException("Empty score list");
+    }
   };
 
   ScoreList plus(int guess, Score guessScore) {
@@ -67,7 +82,7 @@ abstract class ScoreList {
           int letter = (guess >> shift) & 31; // what we got the ochre score for
           ochreMask &= ~(31 << shift);
           boolean found = false;
-          for (int i = 0; i < 25; i += 5) {
+          for (int i = 0; (updatedNewGuess >>> i) != 0; i += 5) {
             if (((updatedNewGuess >> i) & 31) == letter) {
               found = true;
               updatedNewGuess &= ~(31 << i);
@@ -88,7 +103,7 @@ abstract class ScoreList {
 
       @Override
       boolean solved() {
-        return guessScore.equals(Score.SOLVED);
+        return guessScore.isSolved();
       }
 
       @Override
@@ -100,6 +115,21 @@ abstract class ScoreList {
       boolean containsWord(int word) {
         return word == guess || next.containsWord(word);
       }
+
+      @Override
+      int guess() {
+        return guess;
+      }
+
+      @Override
+      Score score() {
+        return guessScore;
+      }
+
+      @Override
+      ScoreList previous() {
+        return next;
+      }
     };
   }
 
@@ -117,6 +147,15 @@ abstract class ScoreList {
 
   abstract boolean containsWord(int word);
 
+  /** The most recent guess. This list must not be empty. */
+  abstract int guess();
+
+  /** The score of the most recent guess. This list must not be empty. */
+  abstract Score score();
+
+  /** The list without the most recent guess. This list must not be empty. */
+  abstract ScoreList previous();
+
   ImmutableSet<Integer> possible(Dictionary dict) {
     return dict.solutionWords().stream().filter(this::consistentWith).collect(toImmutableSet());
   }
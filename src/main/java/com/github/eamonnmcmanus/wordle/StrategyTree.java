@@ -0,0 +1,400 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * A complete strategy for playing Wordle: the first guess, and for every score that guess can
+ * get, the next guess, and so on. A strategy can be built by running a {@link Wordle.Guesser} over
+ * every position it reaches, or from a list of games like the one in {@code hard-mode-games.txt}.
+ *
+ * <p>The serialized form is compact and can be checked by {@link #verify} without building the
+ * tree in memory. It is a magic number followed by the root node. A node is the code of its guess
+ * (an int), the number of children (a short), and then for each child the {@linkplain Score#slots()
+ * score} that leads to it (a short), the length of the child's serialized form (an int), and the
+ * child itself. The child for a solved score has length 0. Since each child records its length,
+ * subtrees can be verified independently and in parallel.
+ */
+class StrategyTree {
+  private static final int MAGIC = 0x57535432; // "WST2"
+
+  private static final Pattern GAME = Pattern.compile("( [a-z]+:[-/+]+)+");
+  private static final Pattern MOVE = Pattern.compile(" ([a-z]+):([-/+]+)");
+
+  private static final class Node {
+    final int guess;
+    // A score maps to null if it is solved.
+    final Map<Integer, Node> children = new TreeMap<>();
+
+    Node(int guess) {
+      this.guess = guess;
+    }
+  }
+
+  private final Node root;
+
+  private StrategyTree(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Builds the strategy that {@code guesser} follows, starting with {@code firstGuess}, against
+   * every solution word in {@code dict}.
+   */
+  static StrategyTree solve(
+      Dictionary dict,
+      ScoreFactory scoreFactory,
+      Wordle.Guesser guesser,
+      Wordle.Mode mode,
+      int firstGuess) {
+    int[] candidates = dict.solutionWords().stream().mapToInt(Integer::intValue).toArray();
+    Node root = new Node(firstGuess);
+    Map<Integer, int[]> buckets = partition(scoreFactory, firstGuess, candidates);
+    // The subtrees for the different first scores are independent, so we build them in parallel.
+    List<Map.Entry<Integer, int[]>> entries = new ArrayList<>(buckets.entrySet());
+    Node[] children = new Node[entries.size()];
+    IntStream.range(0, entries.size()).parallel().forEach(i -> {
+      int score = entries.get(i).getKey();
+      if (score != Score.solved(dict.wordLength()).slots()) {
+        ScoreList scores = ScoreList.EMPTY.plus(firstGuess, new Score(score, dict.wordLength()));
+        children[i] = solve(dict, scoreFactory, guesser, mode, scores, entries.get(i).getValue());
+      }
+    });
+    for (int i = 0; i < entries.size(); i++) {
+      root.children.put(entries.get(i).getKey(), children[i]);
+    }
+    return new StrategyTree(root);
+  }
+
+  private static Node solve(
+      Dictionary dict,
+      ScoreFactory scoreFactory,
+      Wordle.Guesser guesser,
+      Wordle.Mode mode,
+      ScoreList scores,
+      int[] candidates) {
+    // The position is no longer needed when we recurse, so it can use the thread's workspace.
+    Wordle wordle = new Wordle(dict, scoreFactory, scores, mode, false, Workspace.forThread());
+    int guess = guesser.guesses(wordle).get(0);
+    if (scores.containsWord(guess)) {
+      throw new IllegalStateException(
+          "With scores " + scores + ", guessed " + Dictionary.decode(guess));
+    }
+    Node node = new Node(guess);
+    partition(scoreFactory, guess, candidates).forEach((score, bucket) -> {
+      Node child = null;
+      if (score != Score.solved(dict.wordLength()).slots()) {
+        ScoreList childScores = scores.plus(guess, new Score(score, dict.wordLength()));
+        child = solve(dict, scoreFactory, guesser, mode, childScores, bucket);
+      }
+      node.children.put(score, child);
+    });
+    return node;
+  }
+
+  // Returns the candidates that get each score for the guess, in order of the score.
+  private static Map<Integer, int[]> partition(
+      ScoreFactory scoreFactory, int guess, int[] candidates) {
+    Map<Integer, List<Integer>> lists = new TreeMap<>();
+    for (int actual : candidates) {
+      lists.computeIfAbsent(scoreFactory.slots(guess, actual), k -> new ArrayList<>()).add(actual);
+    }
+    Map<Integer, int[]> buckets = new TreeMap<>();
+    lists.forEach(
+        (score, list) -> buckets.put(score, list.stream().mapToInt(Integer::intValue).toArray()));
+    return buckets;
+  }
+
+  /**
+   * Builds a strategy from a list of games, where each game is a line like
+   * {@code " plaid:+++-- plane:++++- plank:+++++"}. Lines that are not games are ignored. The games
+   * must be consistent, meaning that two games that reach the same position make the same guess
+   * there, and every word and score must have the same length.
+   */
+  static StrategyTree fromGames(Iterable<String> lines) {
+    Node root = null;
+    int length = 0;
+    for (String line : lines) {
+      if (!GAME.matcher(line).matches()) {
+        continue;
+      }
+      List<String> guesses = new ArrayList<>();
+      List<Integer> scores = new ArrayList<>();
+      for (Matcher matcher = MOVE.matcher(line); matcher.find(); ) {
+        if (length == 0) {
+          length = matcher.group(1).length();
+        }
+        checkArgument(
+            matcher.group(1).length() == length && matcher.group(2).length() == length,
+            "Expected words and scores of length %s in: %s",
+            length,
+            line);
+        guesses.add(matcher.group(1));
+        scores.add(Score.parse(matcher.group(2)).slots());
+      }
+      if (root == null) {
+        root = new Node(Dictionary.encode(guesses.get(0)));
+      }
+      Node node = root;
+      for (int i = 0; i < guesses.size(); i++) {
+        int guess = Dictionary.encode(guesses.get(i));
+        if (node.guess != guess) {
+          throw new IllegalArgumentException(
+              "Guess " + guesses.get(i) + " differs from earlier guess "
+                  + Dictionary.decode(node.guess) + " in: " + line);
+        }
+        int score = scores.get(i);
+        if (score == Score.solved(length).slots()) {
+          checkArgument(i == guesses.size() - 1, "Guesses after solution in: %s", line);
+          node.children.put(score, null);
+        } else {
+          checkArgument(i < guesses.size() - 1, "Game is not solved: %s", line);
+          Node current = node;
+          int nextGuess = Dictionary.encode(guesses.get(i + 1));
+          node = current.children.computeIfAbsent(score, k -> new Node(nextGuess));
+        }
+      }
+    }
+    checkArgument(root != null, "No games found");
+    return new StrategyTree(root);
+  }
+
+  void write(OutputStream out) throws IOException {
+    DataOutputStream dataOut = new DataOutputStream(out);
+    dataOut.writeInt(MAGIC);
+    dataOut.write(toBytes(root));
+    dataOut.flush();
+  }
+
+  byte[] toBytes() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] toBytes(Node node) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(node.guess);
+    // A guess can make more than 255 parts with 6-letter words, so the count doesn't fit in a byte.
+    out.writeShort(node.children.size());
+    for (Map.Entry<Integer, Node> entry : node.children.entrySet()) {
+      out.writeShort(entry.getKey());
+      byte[] child = (entry.getValue() == null) ? new byte[0] : toBytes(entry.getValue());
+      out.writeInt(child.length);
+      out.write(child);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * The result of {@link #verify}: how many solutions the strategy solves, the total and maximum
+   * number of guesses it needs, and a description of each problem found.
+   */
+  record Verification(int solved, long totalGuesses, int maxGuesses, ImmutableList<String> errors) {
+    private static final Verification EMPTY = new Verification(0, 0, 0, ImmutableList.of());
+
+    Verification plus(Verification that) {
+      return new Verification(
+          this.solved + that.solved,
+          this.totalGuesses + that.totalGuesses,
+          Math.max(this.maxGuesses, that.maxGuesses),
+          ImmutableList.<String>builder().addAll(this.errors).addAll(that.errors).build());
+    }
+
+    private static Verification error(String error) {
+      return new Verification(0, 0, 0, ImmutableList.of(error));
+    }
+
+    boolean ok() {
+      return errors.isEmpty();
+    }
+  }
+
+  /**
+   * Checks the serialized strategy in {@code tree} against every solution word in {@code dict}.
+   * Every guess must be in the dictionary and, if {@code hardMode}, must be
+   * {@linkplain ScoreList#allowedInHardMode allowed} given the scores leading to it. The children of
+   * each node must be exactly the scores given by {@link Score#of} for the solutions that are
+   * still possible, and every solution must be found within {@code maxGuesses} guesses. A tree that
+   * is truncated or has bytes left over is reported as an error.
+   */
+  static Verification verify(Dictionary dict, ByteBuffer tree, boolean hardMode, int maxGuesses) {
+    if (tree.remaining() < 4 || tree.getInt() != MAGIC) {
+      return Verification.error("Not a strategy tree");
+    }
+    int[] candidates = dict.solutionWords().stream().mapToInt(Integer::intValue).toArray();
+    Verifier verifier = new Verifier(dict, hardMode, maxGuesses);
+    return verifier.verify(tree.slice(), ScoreList.EMPTY, candidates, 1, true);
+  }
+
+  private static final class Verifier {
+    private final Dictionary dict;
+    private final boolean hardMode;
+    private final int maxGuesses;
+    private final int solvedSlots;
+
+    Verifier(Dictionary dict, boolean hardMode, int maxGuesses) {
+      this.dict = dict;
+      this.hardMode = hardMode;
+      this.maxGuesses = maxGuesses;
+      this.solvedSlots = Score.solved(dict.wordLength()).slots();
+    }
+
+    private Score score(int slots) {
+      return new Score(slots, dict.wordLength());
+    }
+
+    // The size of a node's guess and child count, and of a child's score and length.
+    private static final int NODE_HEADER = 4 + 2;
+    private static final int CHILD_HEADER = 2 + 4;
+
+    // Verifies the node that must occupy exactly the remaining bytes of the buffer.
+    private Verification verify(
+        ByteBuffer node, ScoreList scores, int[] candidates, int depth, boolean parallel) {
+      if (node.remaining() < NODE_HEADER) {
+        return Verification.error(scores + ": truncated node");
+      }
+      int guess = node.getInt();
+      String where = scores + " " + Dictionary.decode(guess);
+      if (!dict.isGuess(guess)) {
+        return Verification.error(where + ": not in the dictionary");
+      }
+      if (hardMode && !scores.allowedInHardMode(guess)) {
+        return Verification.error(where + ": not allowed in hard mode");
+      }
+      if (depth > maxGuesses) {
+        return Verification.error(where + ": more than " + maxGuesses + " guesses");
+      }
+      Map<Integer, List<Integer>> expected = new TreeMap<>();
+      for (int actual : candidates) {
+        expected.computeIfAbsent(Score.of(guess, actual).slots(), k -> new ArrayList<>()).add(actual);
+      }
+      int childCount = node.getShort() & 0xffff;
+      List<Integer> childScores = new ArrayList<>();
+      List<ByteBuffer> children = new ArrayList<>();
+      for (int i = 0; i < childCount; i++) {
+        if (node.remaining() < CHILD_HEADER) {
+          return Verification.error(where + ": truncated after " + i + " children");
+        }
+        childScores.add(node.getShort() & 0xffff);
+        int length = node.getInt();
+        if (length < 0 || length > node.remaining()) {
+          return Verification.error(
+              where + ": child " + i + " has length " + length + " but only "
+                  + node.remaining() + " bytes remain");
+        }
+        children.add(node.slice(node.position(), length));
+        node.position(node.position() + length);
+      }
+      if (node.hasRemaining()) {
+        return Verification.error(where + ": " + node.remaining() + " bytes left over");
+      }
+      List<Verification> results = new ArrayList<>();
+      if (!ImmutableSet.copyOf(childScores).equals(expected.keySet())
+          || childScores.size() != expected.size()) {
+        results.add(Verification.error(
+            where + ": has children for scores "
+                + childScores.stream().map(s -> score(s).toString()).toList()
+                + " but possible scores are "
+                + expected.keySet().stream().map(s -> score(s).toString()).toList()));
+      }
+      IntStream indices = IntStream.range(0, childCount);
+      if (parallel) {
+        indices = indices.parallel();
+      }
+      // We check every child even if the set of children is wrong, so we can report all problems.
+      Verification childResults = indices
+          .mapToObj(i -> {
+            int score = childScores.get(i);
+            ByteBuffer child = children.get(i);
+            if (score == solvedSlots) {
+              return (child.remaining() == 0)
+                  ? new Verification(1, depth, depth, ImmutableList.of())
+                  : Verification.error(where + ": continues after it is solved");
+            }
+            List<Integer> bucket = expected.get(score);
+            if (bucket == null) {
+              return Verification.EMPTY;
+            }
+            if (child.remaining() == 0) {
+              return Verification.error(where + ":" + score(score) + ": no next guess");
+            }
+            return verify(
+                child,
+                scores.plus(guess, score(score)),
+                bucket.stream().mapToInt(Integer::intValue).toArray(),
+                depth + 1,
+                false);
+          })
+          .reduce(Verification.EMPTY, Verification::plus);
+      results.add(childResults);
+      return results.stream().reduce(Verification.EMPTY, Verification::plus);
+    }
+  }
+
+  /**
+   * Writes or checks strategy trees. The arguments are one of:
+   *
+   * <ul>
+   *   <li>{@code games <games.txt> <tree>} to convert a list of games into a tree;
+   *   <li>{@code solve <first-guess> <tree>} to write the hard-mode strategy of
+   *       {@link Wordle#irvingGuesses};
+   *   <li>{@code verify <tree>} to check a hard-mode tree, exiting with status 1 if it is wrong.
+   * </ul>
+   */
+  public static void main(String[] args) throws IOException {
+    Dictionary dict = Dictionary.create();
+    switch (args[0]) {
+      case "games" -> {
+        StrategyTree tree = fromGames(Files.readAllLines(Paths.get(args[1])));
+        Files.write(Paths.get(args[2]), tree.toBytes());
+      }
+      case "solve" -> {
+        StrategyTree tree = solve(
+            dict, Score::of, Wordle::irvingGuesses, Wordle.Mode.HARD, Dictionary.encode(args[1]));
+        Files.write(Paths.get(args[2]), tree.toBytes());
+      }
+      case "verify" -> {
+        Path path = Paths.get(args[1]);
+        long startTime = System.nanoTime();
+        Verification result = verify(dict, ByteBuffer.wrap(Files.readAllBytes(path)), true, 6);
+        System.out.printf(
+            "%s: solved %d/%d average %.3f max %d in %.2fs\n",
+            path,
+            result.solved(),
+            dict.solutionWords().size(),
+            (double) result.totalGuesses() / result.solved(),
+            result.maxGuesses(),
+            (System.nanoTime() - startTime) / 1e9);
+        result.errors().forEach(System.out::println);
+        if (!result.ok() || result.solved() != dict.solutionWords().size()) {
+          System.exit(1);
+        }
+      }
+      default -> throw new IllegalArgumentException("Unknown command " + args[0]);
+    }
+  }
+}
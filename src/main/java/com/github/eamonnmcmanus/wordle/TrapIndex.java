@@ -0,0 +1,502 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the clusters of solutions that are hard-mode traps. A cluster is a set of solutions
+ * that have the same letters except at one position, like fight, light, might, night, right, sight,
+ * tight, wight. If a guess gives green letters at the other positions, then in hard mode every
+ * later guess must keep those letters, so it can only test one more letter at the remaining
+ * position. Each guess then eliminates at most one candidate, and if there are more candidates
+ * than turns left the game may be lost. Guesses that might lead into such a position are what
+ * {@link Wordle#avoidingTraps} rejects, and finding the cluster for a guess is a hash lookup for
+ * each position. The index also records, for the larger clusters, which guesses split them into
+ * the most parts. Those are the guesses that best get you out of the trap if you make them soon
+ * enough, although for the biggest clusters, like the one above, no guess splits them completely.
+ * Finally, for the same clusters, it records how many hard-mode guesses it takes to be sure of
+ * solving each subset of the members, so that a guesser can check a position that only reveals
+ * some of a cluster's letters with a table lookup rather than a search.
+ */
+final class TrapIndex {
+  /** The number of guesses allowed in a game. */
+  static final int MAX_GUESSES = 6;
+
+  /** The most times that a guesser from {@link #avoiding} chooses again. */
+  static final int MAX_REJECTIONS = 10;
+
+  /** Clusters with at least this many members have their {@link Cluster#splitters} computed. */
+  static final int MIN_SPLIT_SIZE = 3;
+
+  /**
+   * A cluster of at least two solutions that differ only at {@code position}. The {@code pattern}
+   * is the common code of the members with the letter at {@code position} replaced by 0. The
+   * {@code splitters} are the ordinals, in increasing order, of the guesses that split the members
+   * into the most parts, and {@code bestParts} is that number of parts. If the cluster has fewer
+   * than {@link #MIN_SPLIT_SIZE} members then {@code splitters} is empty and {@code bestParts} is 0.
+   */
+  record Cluster(
+      int position,
+      int pattern,
+      ImmutableList<Integer> members,
+      int bestParts,
+      ImmutableList<Integer> splitters) {
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder(Dictionary.decode(pattern | (1 << (5 * position))));
+      sb.setCharAt(position, '_');
+      return sb + members.stream().map(Dictionary::decode).toList().toString();
+    }
+  }
+
+  private final Dictionary dict;
+  private final ImmutableList<Cluster> clusters;
+  // The ordinals of the members of each cluster, for the inner loop of leadsToDeadEnd.
+  private final int[][] memberOrdinals;
+  // The escape table of each cluster, or null if it has fewer than MIN_SPLIT_SIZE members.
+  private final EscapeTable[] escapeTables;
+  // An open-addressing hash table from keys (see key) to indices in clusters. An empty slot has
+  // key 0, which is not a valid key since the pattern of a word always has some letter.
+  private final long[] keys;
+  private final int[] indexes;
+
+  TrapIndex(Dictionary dict, ScoreFactory scoreFactory) {
+    this.dict = dict;
+    int length = dict.wordLength();
+    Map<Long, List<Integer>> groups = new LinkedHashMap<>();
+    for (int word : dict.solutionWords()) {
+      for (int position = 0; position < length; position++) {
+        groups.computeIfAbsent(key(word, position), k -> new ArrayList<>()).add(word);
+      }
+    }
+    this.clusters = groups.entrySet().stream()
+        .filter(entry -> entry.getValue().size() >= 2)
+        .toList()
+        .parallelStream()
+        .map(entry -> cluster(scoreFactory, entry.getKey(), entry.getValue()))
+        .collect(toImmutableList());
+    this.memberOrdinals = clusters.stream()
+        .map(c -> c.members().stream().mapToInt(dict::guessOrdinal).toArray())
+        .toArray(int[][]::new);
+    this.escapeTables = clusters.parallelStream()
+        .map(c -> escapeTable(scoreFactory, c))
+        .toArray(EscapeTable[]::new);
+    int size = Integer.highestOneBit(Math.max(clusters.size(), 1)) << 2;
+    this.keys = new long[size];
+    this.indexes = new int[size];
+    for (int i = 0; i < clusters.size(); i++) {
+      Cluster cluster = clusters.get(i);
+      long key = ((long) cluster.position() << 32) | cluster.pattern();
+      int slot = slot(key);
+      keys[slot] = key;
+      indexes[slot] = i;
+    }
+  }
+
+  private Cluster cluster(ScoreFactory scoreFactory, long key, List<Integer> members) {
+    int bestParts = 0;
+    BitSet splitters = new BitSet();
+    if (members.size() >= MIN_SPLIT_SIZE) {
+      int[] words = members.stream().mapToInt(Integer::intValue).toArray();
+      Histogram histogram = new Histogram();
+      for (int i = 0; i < dict.guessCount(); i++) {
+        histogram.tally(scoreFactory, dict.guessCode(i), words);
+        int parts = histogram.size();
+        if (parts > bestParts) {
+          bestParts = parts;
+          splitters.clear();
+        }
+        if (parts == bestParts) {
+          splitters.set(i);
+        }
+      }
+    }
+    return new Cluster(
+        (int) (key >>> 32),
+        (int) key,
+        ImmutableList.copyOf(members),
+        bestParts,
+        splitters.stream().boxed().collect(toImmutableList()));
+  }
+
+  /**
+   * How many guesses it takes in hard mode to be sure of solving each subset of the members of a
+   * cluster. What hard mode allows depends on which of the cluster's common letters earlier scores
+   * have revealed, so there is a row for each combination of them. The common letters are the
+   * distinct {@code letters}, where {@code letters[j]} occurs {@code counts[j]} times. A
+   * combination is a number in mixed radix where digit j, with radix {@code counts[j] + 1}, is how
+   * many occurrences of {@code letters[j]} a guess must have, and digit 0 is the least
+   * significant. The entry for combination r and subset w, a bitmask over the members, is at
+   * {@code r << members | w}.
+   *
+   * <p>The table treats every required letter as if it were green: a guess must have it in a place
+   * where the cluster has it. That is exactly hard mode once the letters of a trap are green, and
+   * stricter than hard mode for yellow letters. So the table may miss a way out, but it never finds
+   * one that hard mode doesn't allow.
+   */
+  private record EscapeTable(int members, int[] letters, int[] counts, byte[] guessesNeeded) {}
+
+  // What a group of guesses that are interchangeable for a cluster reveals about it: the score
+  // slots against each member, the combination of common letters that each score requires
+  // afterwards (see EscapeTable), and a bitmask of the combinations that allow the guesses.
+  private record Reveal(int[] slots, int[] required, int allowed) {}
+
+  private EscapeTable escapeTable(ScoreFactory scoreFactory, Cluster cluster) {
+    int n = cluster.members().size();
+    if (n < MIN_SPLIT_SIZE) {
+      return null;
+    }
+    int length = dict.wordLength();
+    int[] members = cluster.members().stream().mapToInt(Integer::intValue).toArray();
+    Map<Integer, Integer> letterCounts = new LinkedHashMap<>();
+    for (int position = 0; position < length; position++) {
+      if (position != cluster.position()) {
+        letterCounts.merge((cluster.pattern() >> (5 * position)) & 31, 1, Integer::sum);
+      }
+    }
+    int[] letters = letterCounts.keySet().stream().mapToInt(Integer::intValue).toArray();
+    int[] counts = letterCounts.values().stream().mapToInt(Integer::intValue).toArray();
+    int combinations = 1;
+    for (int count : counts) {
+      combinations *= count + 1;
+    }
+
+    // Many guesses reveal the same things, so the search only needs to consider one of each.
+    Map<List<Integer>, Reveal> reveals = new LinkedHashMap<>();
+    int[] slots = new int[n];
+    for (int i = 0; i < dict.guessCount(); i++) {
+      int guess = dict.guessCode(i);
+      boolean splits = false;
+      for (int m = 0; m < n; m++) {
+        slots[m] = scoreFactory.slots(guess, members[m]);
+        splits |= slots[m] != slots[0];
+      }
+      if (!splits) {
+        continue;
+      }
+      int allowed = 0;
+      for (int r = 0; r < combinations; r++) {
+        if (allows(letters, counts, cluster.pattern(), r, guess)) {
+          allowed |= 1 << r;
+        }
+      }
+      List<Integer> key = ImmutableList.<Integer>builder()
+          .addAll(Ints.asList(slots))
+          .add(allowed)
+          .build();
+      if (!reveals.containsKey(key)) {
+        int[] required = new int[n];
+        for (int m = 0; m < n; m++) {
+          required[m] = combination(letters, counts, guess, slots[m]);
+        }
+        reveals.put(key, new Reveal(slots.clone(), required, allowed));
+      }
+    }
+
+    // Every part that a guess splits off a subset is a smaller subset, so its bitmask is smaller and
+    // its entries are already filled in.
+    int solved = Score.solved(length).slots();
+    byte[] guessesNeeded = new byte[combinations << n];
+    for (int w = 1; w < 1 << n; w++) {
+      int size = Integer.bitCount(w);
+      for (int r = 0; r < combinations; r++) {
+        // Guessing the members one by one always works. With two members nothing does better.
+        int best = size;
+        for (Reveal reveal : (size <= 2) ? List.<Reveal>of() : reveals.values()) {
+          if (best == 2) {
+            break; // with more than two members, nothing takes fewer than two guesses
+          }
+          if ((reveal.allowed() & (1 << r)) == 0) {
+            continue;
+          }
+          int worst = 0;
+          for (int rest = w; rest != 0 && 1 + worst < best; ) {
+            int m = Integer.numberOfTrailingZeros(rest);
+            int score = reveal.slots()[m];
+            int part = 0;
+            for (int j = m; j < n; j++) {
+              if ((rest & (1 << j)) != 0 && reveal.slots()[j] == score) {
+                part |= 1 << j;
+              }
+            }
+            if (part == w) {
+              worst = best; // doesn't split
+              break;
+            }
+            rest &= ~part;
+            if (score != solved) {
+              int after = max(counts, r, reveal.required()[m]);
+              worst = Math.max(worst, guessesNeeded[(after << n) | part]);
+            }
+          }
+          best = Math.min(best, 1 + worst);
+        }
+        guessesNeeded[(r << n) | w] = (byte) best;
+      }
+    }
+    return new EscapeTable(n, letters, counts, guessesNeeded);
+  }
+
+  // The combination (see EscapeTable) of the given letters that hard mode requires after scores.
+  private static int combination(int[] letters, int[] counts, ScoreList scores) {
+    int combination = 0;
+    for (ScoreList s = scores; s.size() > 0; s = s.previous()) {
+      combination =
+          max(counts, combination, combination(letters, counts, s.guess(), s.score().slots()));
+    }
+    return combination;
+  }
+
+  // The combination of the given letters that hard mode requires after guess gets a score with
+  // the given slots.
+  private static int combination(int[] letters, int[] counts, int guess, int slots) {
+    int combination = 0;
+    for (int j = letters.length - 1; j >= 0; j--) {
+      int found = 0;
+      for (int position = 0; position < Dictionary.length(guess); position++) {
+        boolean grey = ((slots >> (2 * position)) & 3) == 0;
+        if (((guess >> (5 * position)) & 31) == letters[j] && !grey) {
+          found++;
+        }
+      }
+      combination = combination * (counts[j] + 1) + Math.min(found, counts[j]);
+    }
+    return combination;
+  }
+
+  // Whether guess has as many of each letter as combination r requires, in places where the
+  // cluster's pattern has that letter.
+  private static boolean allows(int[] letters, int[] counts, int pattern, int r, int guess) {
+    for (int j = 0; j < letters.length; j++) {
+      int radix = counts[j] + 1;
+      int count = 0;
+      for (int position = 0; position < Dictionary.length(guess); position++) {
+        if (((guess >> (5 * position)) & 31) == letters[j]
+            && ((pattern >> (5 * position)) & 31) == letters[j]) {
+          count++;
+        }
+      }
+      if (count < r % radix) {
+        return false;
+      }
+      r /= radix;
+    }
+    return true;
+  }
+
+  // The combination that requires, of each letter, the larger of what a and b require.
+  private static int max(int[] counts, int a, int b) {
+    int combination = 0;
+    for (int j = 0, scale = 1; j < counts.length; j++) {
+      int radix = counts[j] + 1;
+      combination += Math.max(a % radix, b % radix) * scale;
+      a /= radix;
+      b /= radix;
+      scale *= radix;
+    }
+    return combination;
+  }
+
+  // The key of the cluster that word would belong to if it differs from the others at position.
+  private static long key(int word, int position) {
+    return ((long) position << 32) | (word & ~(31 << (5 * position)));
+  }
+
+  // The slot where key is, or the empty slot where it would go.
+  private int slot(long key) {
+    int mask = keys.length - 1;
+    long h = key * 0x9e3779b97f4a7c15L;
+    for (int slot = (int) (h >>> 40) & mask; ; slot = (slot + 1) & mask) {
+      if (keys[slot] == key || keys[slot] == 0) {
+        return slot;
+      }
+    }
+  }
+
+  /** All the clusters, in no particular order. */
+  ImmutableList<Cluster> clusters() {
+    return clusters;
+  }
+
+  /**
+   * Returns the cluster of solutions that differ from {@code word} only at {@code position}, or
+   * null if there are fewer than two such solutions.
+   */
+  Cluster cluster(int word, int position) {
+    int slot = slot(key(word, position));
+    return (keys[slot] == 0) ? null : clusters.get(indexes[slot]);
+  }
+
+  /**
+   * Returns true if making {@code guess} as guess number {@code turn}, in hard mode, might leave
+   * more candidates than can be tried one by one in the remaining turns. The candidates are the
+   * words whose ordinals are set in {@code consistentOrdinals}. The guess leads to a dead end if,
+   * for some position, the consistent words that match the guess at every other position, apart
+   * from the guess itself, are too many. They all get the same score, with greens at every other
+   * position, so they are a part of the guess's partition. Each later guess has to keep those
+   * greens and can solve at most one of them.
+   */
+  boolean leadsToDeadEnd(int guess, BitSet consistentOrdinals, int turn) {
+    int length = Dictionary.length(guess);
+    int guessOrdinal = dict.guessOrdinal(guess);
+    int budget = MAX_GUESSES - turn;
+    for (int position = 0; position < length; position++) {
+      int slot = slot(key(guess, position));
+      if (keys[slot] != 0) {
+        int n = 0;
+        for (int ordinal : memberOrdinals[indexes[slot]]) {
+          if (ordinal != guessOrdinal && consistentOrdinals.get(ordinal) && ++n > budget) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if making {@code guess} after {@code scores} might leave candidates from a cluster
+   * that can't be solved in hard mode in the remaining turns. This is more thorough than
+   * {@link #leadsToDeadEnd(int, BitSet, int)}, because it also catches guesses that only reveal
+   * some of the letters that the cluster has in common. It partitions {@code candidates}, and for
+   * each part it looks at the words that the part has in common with each cluster. If there are
+   * more of them than there are turns left, it looks up how many guesses they need in the cluster's
+   * table, given the letters that hard mode requires after the guess.
+   */
+  boolean leadsToDeadEnd(ScoreFactory scoreFactory, ScoreList scores, int guess, int[] candidates) {
+    int budget = MAX_GUESSES - scores.size() - 1;
+    for (Map.Entry<Score, int[]> entry : partition(scoreFactory, guess, candidates).entrySet()) {
+      Score score = entry.getKey();
+      int[] part = entry.getValue();
+      if (!score.isSolved() && part.length > budget) {
+        ScoreList after = scores.plus(guess, score);
+        for (Map.Entry<Integer, int[]> common : commonWords(part).entrySet()) {
+          int[] words = common.getValue();
+          if (words.length > budget && guessesNeeded(common.getKey(), after, words) > budget) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  // For each cluster that has a word in common with part, the index of the cluster and the words
+  // that they have in common.
+  private Map<Integer, int[]> commonWords(int[] part) {
+    Map<Integer, List<Integer>> common = new LinkedHashMap<>();
+    for (int word : part) {
+      for (int position = 0; position < Dictionary.length(word); position++) {
+        int slot = slot(key(word, position));
+        if (keys[slot] != 0) {
+          common.computeIfAbsent(indexes[slot], k -> new ArrayList<>()).add(word);
+        }
+      }
+    }
+    Map<Integer, int[]> result = new LinkedHashMap<>();
+    common.forEach(
+        (index, words) -> result.put(index, words.stream().mapToInt(Integer::intValue).toArray()));
+    return result;
+  }
+
+  // How many guesses it takes in hard mode after scores to be sure of solving words, which are
+  // members of the cluster with the given index.
+  private int guessesNeeded(int index, ScoreList scores, int[] words) {
+    EscapeTable table = escapeTables[index];
+    if (table == null) {
+      // With two members, nothing does better than guessing them one by one.
+      return words.length;
+    }
+    ImmutableList<Integer> members = clusters.get(index).members();
+    int subset = 0;
+    for (int word : words) {
+      for (int m = 0; m < members.size(); m++) {
+        if (members.get(m) == word) {
+          subset |= 1 << m;
+        }
+      }
+    }
+    int r = combination(table.letters(), table.counts(), scores);
+    return table.guessesNeeded()[(r << table.members()) | subset];
+  }
+
+  private static Map<Score, int[]> partition(ScoreFactory scoreFactory, int guess, int[] words) {
+    Map<Score, List<Integer>> parts = new LinkedHashMap<>();
+    for (int word : words) {
+      parts.computeIfAbsent(scoreFactory.score(guess, word), k -> new ArrayList<>()).add(word);
+    }
+    Map<Score, int[]> result = new LinkedHashMap<>();
+    parts.forEach(
+        (score, part) -> result.put(score, part.stream().mapToInt(Integer::intValue).toArray()));
+    return result;
+  }
+
+  /**
+   * Returns a guesser that avoids dead ends. It first excludes the guesses that
+   * {@link Wordle#avoidingTraps} excludes, which is cheap. Then if the guess that {@code guesser}
+   * chooses from what is left still
+   * {@linkplain #leadsToDeadEnd(ScoreFactory, ScoreList, int, int[]) leads to a dead end}, that
+   * guess is excluded too and {@code guesser} chooses again, up to {@link #MAX_REJECTIONS} times.
+   */
+  Wordle.Guesser avoiding(ScoreFactory scoreFactory, Wordle.Guesser guesser) {
+    return wordle -> {
+      if (wordle.mode() == Wordle.Mode.NORMAL) {
+        return guesser.guesses(wordle);
+      }
+      Wordle position = wordle.avoidingTraps(this);
+      ImmutableList<Integer> guesses = guesser.guesses(position);
+      ImmutableList<Integer> first = guesses;
+      for (int i = 0; i < MAX_REJECTIONS; i++) {
+        int guess = guesses.get(0);
+        if (!leadsToDeadEnd(scoreFactory, position.scores(), guess, position.consistentWords())) {
+          return guesses;
+        }
+        position = position.excluding(guess);
+        if (position.allowedCount() == 0) {
+          break;
+        }
+        guesses = guesser.guesses(position);
+      }
+      return first;
+    };
+  }
+
+  /**
+   * Prints the biggest trap clusters, then compares the results of the guesser named by the first
+   * argument (default knuth) with and without trap avoidance, for each starting word in the
+   * remaining arguments.
+   */
+  public static void main(String[] args) {
+    Dictionary dict = Dictionary.create();
+    long startTime = System.nanoTime();
+    TrapIndex traps = new TrapIndex(dict, Wordle.DEFAULT_SCORE_FACTORY);
+    System.out.printf(
+        "%d clusters in %.1fs\n", traps.clusters().size(), (System.nanoTime() - startTime) / 1e9);
+    traps.clusters().stream()
+        .sorted(Comparator.comparingInt((Cluster c) -> c.members().size()).reversed())
+        .limit(20)
+        .forEach(c -> System.out.printf(
+            "%s: %d guesses make %d parts\n", c, c.splitters().size(), c.bestParts()));
+    String guesserName = (args.length > 0) ? args[0] : "knuth";
+    Wordle.Guesser guesser = DistributedSolve.GUESSERS.get(guesserName);
+    Wordle.Guesser avoidingGuesser = traps.avoiding(Wordle.DEFAULT_SCORE_FACTORY, guesser);
+    int solutionCount = dict.solutionWords().size();
+    for (int i = 1; i < args.length; i++) {
+      int starting = Dictionary.encode(args[i]);
+      Wordle.TotalAndMax plain = Wordle.solveRange(dict, guesser, starting, 0, solutionCount);
+      Wordle.TotalAndMax avoiding =
+          Wordle.solveRange(dict, avoidingGuesser, starting, 0, solutionCount);
+      System.out.printf(
+          "%s: %d/%d, avoiding traps %d/%d\n",
+          args[i], plain.total(), plain.max(), avoiding.total(), avoiding.max());
+    }
+  }
+}
@@ -6,12 +6,11 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.lang.Integer.max;
 
 import com.google.common.base.StandardSystemProperty;
-import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
+import com.google.common.math.LongMath;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
@@ -19,6 +18,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -28,12 +29,28 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * @author Éamonn McManus
  */
 public class Wordle {
-  private static final ScoreFactory DEFAULT_SCORE_FACTORY = Score::of;
+  static final ScoreFactory DEFAULT_SCORE_FACTORY = new ScoreFactory() {
+    @Override
+    public Score score(int attempt, int actual) {
+      return Score.of(attempt, actual);
+    }
+
+    @Override
+    public int slots(int attempt, int actual) {
+      return Score.slots(attempt, actual);
+    }
+  };
 
   enum Mode {
     /** The normal Wordle mode, where any guess in the dictionary is allowed. */
@@ -54,54 +71,419 @@ public class Wordle {
      */
     CONSISTENT}
 
-  private static final Mode DEFAULT_MODE = Mode.HARD;
+  static final Mode DEFAULT_MODE = Mode.HARD;
 
   interface Guesser {
     ImmutableList<Integer> guesses(Wordle wordle);
   }
 
+  private final Dictionary dict;
   private final ScoreFactory scoreFactory;
-  private final ImmutableSet<Integer> consistentWords;
-  private final ImmutableSet<Integer> allowedGuesses;
+  private final int[] consistentWords;
+  // Bit i is set if the guess word with ordinal i is one of the consistentWords.
+  private final BitSet consistentOrdinals;
+  // The ordinals of the allowed guesses, in dictionary order, in the first allowedCount elements.
+  private final int[] allowedGuesses;
+  private final int allowedCount;
+  private final Workspace workspace;
+  private final Mode mode;
+  private final ScoreList scores;
+  // Whether to evaluate the allowed guesses in parallel.
+  private final boolean parallel;
 
   Wordle(Dictionary dict, ScoreFactory scoreFactory, ScoreList scores, Mode mode) {
+    this(dict, scoreFactory, scores, mode, false);
+  }
+
+  /**
+   * Constructs a position where the guessers split the evaluation of the allowed guesses across
+   * cores if {@code parallel} is true. That is worthwhile when only one position is being solved at
+   * a time, but not when many threads are already solving positions.
+   */
+  Wordle(Dictionary dict, ScoreFactory scoreFactory, ScoreList scores, Mode mode, boolean parallel) {
+    this(dict, scoreFactory, scores, mode, parallel, new Workspace());
+  }
+
+  /**
+   * Constructs a position whose working arrays come from {@code workspace}. If that is
+   * {@link Workspace#forThread()}, the position is only valid until the current thread constructs
+   * another position in the same way.
+   */
+  Wordle(
+      Dictionary dict,
+      ScoreFactory scoreFactory,
+      ScoreList scores,
+      Mode mode,
+      boolean parallel,
+      Workspace workspace) {
+    long startTime = Metrics.ENABLED ? System.nanoTime() : 0;
+    this.dict = dict;
     this.scoreFactory = scoreFactory;
-    this.consistentWords =
-        dict.solutionWords().stream().filter(scores::consistentWith).collect(toImmutableSet());
-    switch (mode) {
-      case NORMAL:
-        this.allowedGuesses = dict.guessWords();
-        break;
-      case HARD:
-        this.allowedGuesses =
-            dict.guessWords().stream().filter(scores::allowedInHardMode).collect(toImmutableSet());
-        break;
-      case CONSISTENT:
-        this.allowedGuesses =
-            dict.guessWords().stream().filter(scores::consistentWith).collect(toImmutableSet());
-        break;
-      default:
-        throw new AssertionError(mode);
+    this.parallel = parallel;
+    this.workspace = workspace;
+    this.mode = mode;
+    this.scores = scores;
+    this.consistentOrdinals = workspace.consistentOrdinals;
+    // The guess index finds the consistent and allowed words by intersecting bit sets, without
+    // scoring each word against the earlier guesses.
+    GuessIndex index = dict.guessIndex();
+    dict.solutionOrdinals(consistentOrdinals);
+    index.retainConsistent(scores, consistentOrdinals);
+    this.consistentWords = new int[consistentOrdinals.cardinality()];
+    for (int i = consistentOrdinals.nextSetBit(0), j = 0; i >= 0; i = consistentOrdinals.nextSetBit(i + 1)) {
+      consistentWords[j++] = dict.guessCode(i);
+    }
+    long consistentTime = Metrics.ENABLED ? System.nanoTime() : 0;
+    int n = dict.guessCount();
+    this.allowedGuesses = workspace.allowedGuesses(n);
+    int count = 0;
+    if (mode == Mode.NORMAL) {
+      for (int i = 0; i < n; i++) {
+        allowedGuesses[count++] = i;
+      }
+    } else {
+      BitSet allowedOrdinals = workspace.allowedOrdinals;
+      allowedOrdinals.clear();
+      allowedOrdinals.set(0, n);
+      switch (mode) {
+        case HARD -> index.retainAllowedInHardMode(scores, allowedOrdinals);
+        case CONSISTENT -> index.retainConsistent(scores, allowedOrdinals);
+        default -> throw new AssertionError(mode);
+      }
+      for (int i = allowedOrdinals.nextSetBit(0); i >= 0; i = allowedOrdinals.nextSetBit(i + 1)) {
+        allowedGuesses[count++] = i;
+      }
+    }
+    this.allowedCount = count;
+    if (Metrics.ENABLED) {
+      Metrics.position(
+          scores.size(),
+          consistentWords.length,
+          consistentTime - startTime,
+          System.nanoTime() - consistentTime);
+    }
+  }
+
+  // A copy of that position where only the first count elements of allowedGuesses are allowed.
+  private Wordle(Wordle that, int[] allowedGuesses, int count) {
+    this.dict = that.dict;
+    this.scoreFactory = that.scoreFactory;
+    this.consistentWords = that.consistentWords;
+    this.consistentOrdinals = that.consistentOrdinals;
+    this.allowedGuesses = allowedGuesses;
+    this.allowedCount = count;
+    this.workspace = that.workspace;
+    this.mode = that.mode;
+    this.scores = that.scores;
+    this.parallel = that.parallel;
+  }
+
+  /**
+   * Returns this position, except that guesses that {@code traps} shows might lead to a dead end
+   * are not allowed. If some guesses are excluded for that reason, then so are guesses that would
+   * leave the consistent words in a single part, since they only waste a turn. If that leaves no
+   * guesses, meaning that this position is already a dead end, or if this is {@link Mode#NORMAL}
+   * where a cluster of candidates can always be split, the position is returned unchanged. The
+   * returned position shares this position's workspace, so both are only valid while this one is.
+   */
+  Wordle avoidingTraps(TrapIndex traps) {
+    if (mode == Mode.NORMAL) {
+      return this;
+    }
+    int[] filtered = workspace.filteredGuesses(allowedCount);
+    int count = 0;
+    for (int i = 0; i < allowedCount; i++) {
+      int guess = dict.guessCode(allowedGuesses[i]);
+      if (!traps.leadsToDeadEnd(guess, consistentOrdinals, scores.size() + 1)) {
+        filtered[count++] = allowedGuesses[i];
+      }
+    }
+    if (count == allowedCount) {
+      return this;
+    }
+    Histogram histogram = HISTOGRAMS.get();
+    int informative = 0;
+    for (int i = 0; i < count; i++) {
+      int ordinal = filtered[i];
+      histogram.tally(scoreFactory, dict.guessCode(ordinal), consistentWords);
+      if (histogram.size() > 1 || consistentOrdinals.get(ordinal)) {
+        filtered[informative++] = ordinal;
+      }
+    }
+    if (informative == 0) {
+      return this;
+    }
+    return new Wordle(this, filtered, informative);
+  }
+
+  /**
+   * Returns this position, except that {@code guess} is not allowed. The returned position shares
+   * this position's workspace, and this position is no longer valid.
+   */
+  Wordle excluding(int guess) {
+    int ordinal = dict.guessOrdinal(guess);
+    int[] filtered = workspace.filteredGuesses(allowedCount);
+    int count = 0;
+    for (int i = 0; i < allowedCount; i++) {
+      if (allowedGuesses[i] != ordinal) {
+        filtered[count++] = allowedGuesses[i];
+      }
+    }
+    return new Wordle(this, filtered, count);
+  }
+
+  Mode mode() {
+    return mode;
+  }
+
+  int allowedCount() {
+    return allowedCount;
+  }
+
+  /** The code of allowed guess i, where i is less than {@link #allowedCount()}. */
+  int allowedGuess(int i) {
+    return dict.guessCode(allowedGuesses[i]);
+  }
+
+  /** The scores of the guesses made so far. */
+  ScoreList scores() {
+    return scores;
+  }
+
+  /** The words that are consistent with {@link #scores()}. The array must not be modified. */
+  int[] consistentWords() {
+    return consistentWords;
+  }
+
+  private static ImmutableList<Integer> timedGuesses(Guesser guesser, Wordle wordle) {
+    if (!Metrics.ENABLED) {
+      return guesser.guesses(wordle);
+    }
+    long startTime = System.nanoTime();
+    ImmutableList<Integer> guesses = guesser.guesses(wordle);
+    Metrics.guesserCalled(System.nanoTime() - startTime);
+    return guesses;
+  }
+
+  private static final int CHUNK_SIZE = 256;
+
+  private static final ThreadLocal<Histogram> HISTOGRAMS = ThreadLocal.withInitial(Histogram::new);
+
+  /**
+   * A metric to be minimized over guesses, which can stop evaluating a guess as soon as it knows
+   * that the metric will exceed a bound.
+   */
+  @FunctionalInterface
+  private interface BoundedMetric {
+    /**
+     * Returns the metric for {@code guess} against {@code candidates}, or {@code Long.MAX_VALUE} if
+     * it is greater than {@code bound}.
+     */
+    long evaluate(Histogram histogram, ScoreFactory scoreFactory, int guess, int[] candidates, long bound);
+  }
+
+  // The guesses that were most recently chosen by any guesser. Positions reached from similar
+  // scores often have the same best guess, so evaluating these first tends to give a tight bound
+  // early. Updates are racy, but any guess here is as good a place to start as any other.
+  // A power of 2, so that the index wraps correctly when the counter overflows.
+  private static final int RECENT_GUESSES = 16;
+  private static final AtomicIntegerArray recentGuesses = new AtomicIntegerArray(RECENT_GUESSES);
+  private static final AtomicInteger recentGuessIndex = new AtomicInteger();
+
+  private static void recordChosen(int guess) {
+    recentGuesses.lazySet(recentGuessIndex.getAndIncrement() & (RECENT_GUESSES - 1), guess);
+  }
+
+  /**
+   * Evaluates {@code metric} for each allowed guess against the consistent words. Element i of the
+   * returned array is the metric for {@code allowedGuesses[i]}, or {@code Long.MAX_VALUE} if that
+   * metric is greater than the metric of some other guess. So the minimum of the array, and the set
+   * of guesses that have that minimum, are the same as if every metric had been computed in full.
+   * The array belongs to the {@link Workspace} and may have more than {@link #allowedCount}
+   * elements.
+   *
+   * <p>The recently chosen guesses are evaluated first, to get a good bound. Then if this position
+   * is {@linkplain #parallel parallel}, the remaining guesses are split into chunks that are
+   * evaluated on different threads, each with its own histogram. All threads share the bound.
+   * Since any guess that achieves the minimum is always computed in full, the result does not
+   * depend on how the work was split.
+   */
+  private long[] evaluate(BoundedMetric metric) {
+    long[] values = workspace.longValues(allowedCount);
+    int[] representatives = partitionRepresentatives();
+    BitSet seeds = workspace.seeds;
+    seeds.clear();
+    Histogram seedHistogram = HISTOGRAMS.get();
+    long seedBound = Long.MAX_VALUE;
+    for (int r = 0; r < RECENT_GUESSES; r++) {
+      int guess = recentGuesses.get(r);
+      int i = (guess == 0) ? -1 : Arrays.binarySearch(allowedGuesses, 0, allowedCount, dict.guessOrdinal(guess));
+      if (i >= 0 && !seeds.get(representatives[i])) {
+        i = representatives[i];
+        seeds.set(i);
+        values[i] = metric.evaluate(
+            seedHistogram, scoreFactory, dict.guessCode(allowedGuesses[i]), consistentWords, seedBound);
+        seedBound = Math.min(seedBound, values[i]);
+      }
+    }
+    AtomicLong bound = new AtomicLong(seedBound);
+    evaluateChunks(chunk -> {
+      Histogram histogram = HISTOGRAMS.get();
+      int end = Math.min(chunk + CHUNK_SIZE, allowedCount);
+      int evaluated = 0;
+      int cutShort = 0;
+      for (int i = chunk; i < end; i++) {
+        if (representatives[i] == i && !seeds.get(i)) {
+          evaluated++;
+          long currentBound = bound.get();
+          long value = metric.evaluate(
+              histogram, scoreFactory, dict.guessCode(allowedGuesses[i]), consistentWords, currentBound);
+          values[i] = value;
+          if (value < currentBound) {
+            bound.accumulateAndGet(value, Math::min);
+          } else if (value == Long.MAX_VALUE) {
+            cutShort++;
+          }
+        }
+      }
+      if (Metrics.ENABLED) {
+        Metrics.guessesEvaluated(evaluated, cutShort);
+      }
+    });
+    for (int i = 0; i < allowedCount; i++) {
+      values[i] = values[representatives[i]];
+    }
+    return values;
+  }
+
+  /**
+   * Finds guesses that are certain to partition the consistent words in exactly the same way, so
+   * that only one of them needs to be evaluated. Element i of the returned array is the index in
+   * {@code allowedGuesses} of the first guess that is known to partition like
+   * {@code allowedGuesses[i]}, which is often i itself.
+   *
+   * <p>We compute a signature for each guess by replacing with 0 the letters whose score is the same
+   * for every consistent word. That is the case for a letter that appears in none of the consistent
+   * words, since it is always grey. It is also the case for a letter that appears exactly once in
+   * the guess and exactly once in every consistent word, at the same position, since it is always
+   * green and doesn't affect the score of any other letter. In hard mode that is true of every
+   * green letter from an earlier guess. A guess whose signature is 0 gives no information at all.
+   * Guesses with the same signature get the same scores except at the replaced positions, so they
+   * have the same partition.
+   */
+  private int[] partitionRepresentatives() {
+    int[] representatives = workspace.representatives(allowedCount);
+    int live = 0; // bit c is set if letter c is in some consistent word
+    int once = -1; // bit c is set if letter c is in every consistent word exactly once
+    int first = (consistentWords.length == 0) ? 0 : consistentWords[0];
+    int differs = 0; // the 5 bits for a position are 0 if every consistent word has the same letter
+    for (int word : consistentWords) {
+      int seen = letterSet(word);
+      live |= seen;
+      once &= seen & ~repeatedLetterSet(word);
+      differs |= word ^ first;
+    }
+    int[] fixedLetters = workspace.fixedLetters;
+    for (int i = 0, shift = 0; i < fixedLetters.length; i++, shift += 5) {
+      fixedLetters[i] = (((differs >> shift) & 31) == 0) ? (first >> shift) & 31 : -1;
+    }
+    workspace.clearSignatures(allowedCount);
+    int collapsed = 0;
+    for (int i = 0; i < allowedCount; i++) {
+      int guess = dict.guessCode(allowedGuesses[i]);
+      int guessOnce = letterSet(guess) & ~repeatedLetterSet(guess);
+      int signature = guess;
+      for (int j = 0, shift = 0; (guess >>> shift) != 0; j++, shift += 5) {
+        int c = (guess >> shift) & 31;
+        int bit = 1 << c;
+        if ((live & bit) == 0 || (c == fixedLetters[j] && (once & guessOnce & bit) != 0)) {
+          signature &= ~(31 << shift);
+        }
+      }
+      // A guess that is unchanged can't share a signature with any other guess, because any other
+      // guess that has the same signature has had at least one letter replaced.
+      if (signature == guess) {
+        representatives[i] = i;
+      } else {
+        representatives[i] = workspace.signatureIndex(signature, i);
+        if (representatives[i] != i) {
+          collapsed++;
+        }
+      }
+    }
+    if (Metrics.ENABLED) {
+      Metrics.guessesCollapsed(allowedCount, collapsed);
+    }
+    return representatives;
+  }
+
+  // Bit c is set if letter c occurs in the word.
+  private static int letterSet(int word) {
+    int set = 0;
+    for (; word != 0; word >>>= 5) {
+      set |= 1 << (word & 31);
+    }
+    return set;
+  }
+
+  // Bit c is set if letter c occurs more than once in the word.
+  private static int repeatedLetterSet(int word) {
+    int seen = 0;
+    int repeated = 0;
+    for (; word != 0; word >>>= 5) {
+      int bit = 1 << (word & 31);
+      repeated |= seen & bit;
+      seen |= bit;
+    }
+    return repeated;
+  }
+
+  // Calls chunkEvaluator with the index of the start of each chunk of allowedGuesses.
+  private void evaluateChunks(IntConsumer chunkEvaluator) {
+    IntStream chunks = IntStream.iterate(0, i -> i < allowedCount, i -> i + CHUNK_SIZE);
+    if (parallel && allowedCount > CHUNK_SIZE) {
+      chunks = chunks.parallel();
+    }
+    chunks.forEach(chunkEvaluator);
+  }
+
+  /**
+   * Returns the greatest value, over the allowed guesses, of the number of parts that the guess
+   * splits the consistent words into, plus one if the guess is itself consistent. That limits what
+   * any strategy can do with the next two guesses. If the next guess splits the n consistent words
+   * into p parts, it solves at most one word itself, if it is consistent, and the guess after that
+   * solves at most one word from each other part. Every other word needs at least two more guesses
+   * after that. So if this method returns k and the next guess will be guess number t, the games
+   * for the n words take at least {@code (t + 2)n - k} guesses between them.
+   */
+  int maxTwoGuessSplit() {
+    int[] representatives = partitionRepresentatives();
+    long[] parts = workspace.longValues(allowedCount);
+    Histogram histogram = HISTOGRAMS.get();
+    int best = 0;
+    int limit = consistentWords.length + 1;
+    for (int i = 0; i < allowedCount && best < limit; i++) {
+      int r = representatives[i];
+      if (r == i) {
+        histogram.tally(scoreFactory, dict.guessCode(allowedGuesses[i]), consistentWords);
+        parts[i] = histogram.size();
+      }
+      // Guesses with the same partition can differ in whether they are consistent.
+      best = Math.max(best, (int) parts[r] + (consistentOrdinals.get(allowedGuesses[i]) ? 1 : 0));
     }
+    return best;
   }
 
   static ImmutableList<Integer> knuthGuesses(Wordle wordle) {
+    long[] maxes = wordle.evaluate(Histogram::maxCountWithin);
     ArrayList<Integer> bestGuesses = new ArrayList<>();
-    int bestMax = Integer.MAX_VALUE;
+    long bestMax = Integer.MAX_VALUE;
     boolean bestIsConsistent = false;
-    for (Integer guess : wordle.allowedGuesses) {
-      Multiset<Score> scoreCounts = HashMultiset.create();
-      boolean guessIsConsistent = false;
-      for (int actual : wordle.consistentWords) {
-        scoreCounts.add(wordle.scoreFactory.score(guess, actual));
-        if (actual == guess) {
-          guessIsConsistent = true;
-        }
-      }
-      int max = scoreCounts.entrySet().stream()
-          .map(Multiset.Entry::getCount)
-          .max(Integer::compare)
-          .orElse(Integer.MAX_VALUE);
+    for (int i = 0; i < wordle.allowedCount; i++) {
+      int ordinal = wordle.allowedGuesses[i];
+      int guess = wordle.dict.guessCode(ordinal);
+      boolean guessIsConsistent = wordle.consistentOrdinals.get(ordinal);
+      long max = maxes[i];
       if (max < bestMax || (max == bestMax && (guessIsConsistent || !bestIsConsistent))) {
         if (false) {
           System.out.printf("better: old best %s max %d, new best %s max %d\n",
@@ -116,26 +498,20 @@ public class Wordle {
     if (bestGuesses.isEmpty()) {
       throw new IllegalStateException("could not find a compatible word");
     }
+    recordChosen(bestGuesses.get(0));
     return ImmutableList.copyOf(bestGuesses);
   }
 
   static ImmutableList<Integer> irvingGuesses(Wordle wordle) {
+    long[] squareSums = wordle.evaluate(Histogram::sumOfSquaresWithin);
     ArrayList<Integer> bestGuesses = new ArrayList<>();
-    int bestSquareSum = Integer.MAX_VALUE;
+    long bestSquareSum = Long.MAX_VALUE;
     boolean bestIsConsistent = false;
-    for (Integer guess : wordle.allowedGuesses) {
-      Multiset<Score> scoreCounts = HashMultiset.create();
-      boolean guessIsConsistent = false;
-      for (int actual : wordle.consistentWords) {
-        scoreCounts.add(wordle.scoreFactory.score(guess, actual));
-        if (actual == guess) {
-          guessIsConsistent = true;
-        }
-      }
-      int squareSum = scoreCounts.entrySet().stream()
-          .mapToInt(Multiset.Entry::getCount)
-          .map(x -> x * x)
-          .sum();
+    for (int i = 0; i < wordle.allowedCount; i++) {
+      int ordinal = wordle.allowedGuesses[i];
+      int guess = wordle.dict.guessCode(ordinal);
+      boolean guessIsConsistent = wordle.consistentOrdinals.get(ordinal);
+      long squareSum = squareSums[i];
       if (squareSum < bestSquareSum || (squareSum == bestSquareSum && guessIsConsistent && !bestIsConsistent)) {
         if (false) {
           System.out.printf("better: old best %s sqsum %d, new best %s sqsum %d\n",
@@ -155,43 +531,39 @@ public class Wordle {
     if (bestGuesses.isEmpty()) {
       throw new IllegalStateException("could not find a compatible word");
     }
+    recordChosen(bestGuesses.get(0));
     return ImmutableList.copyOf(bestGuesses);
   }
 
   static ImmutableList<Integer> neuwirthGuesses(Wordle wordle) {
+    // We want to maximize (Σ -p_i lg p_i) over all distinct scores, where p_i is the proportion
+    // of consistent words that get score i, in other words k_i/N where k_i is the number of
+    // consistent words that get score i and N is the number of consistent words. But we don't
+    // actually need to divide by N or to use base-2 logarithms, since N is constant over the
+    // values we are comparing, and of course lg x is a constant multiple of ln x. We're only
+    // interested in knowing which guess gets the maximum value and constant terms won't change
+    // that. So equivalently we minimize Σ k_i ln k_i, which Histogram computes in fixed point from
+    // a table, so ties are exact. Since the sum only grows as words are tallied, guesses can be cut
+    // short just as for the other guessers.
+    long[] nLogNs = wordle.evaluate(Histogram::nLogNWithin);
     ArrayList<Integer> bestGuesses = new ArrayList<>();
-    double bestEntropy = Double.NEGATIVE_INFINITY;
+    long bestNLogN = Long.MAX_VALUE;
     boolean bestIsConsistent = false;
-    for (Integer guess : wordle.allowedGuesses) {
-      Multiset<Score> scoreCounts = HashMultiset.create();
-      boolean guessIsConsistent = false;
-      for (int actual : wordle.consistentWords) {
-        scoreCounts.add(wordle.scoreFactory.score(guess, actual));
-        if (actual == guess) {
-          guessIsConsistent = true;
-        }
-      }
-      // We want to maximize (Σ -p_i lg p_i) over all distinct scores, where p_i is the proportion
-      // of consistent words that get score i, in other words k_i/N where k_i is the number of
-      // consistent words that get score i and N is the number of consistent words. But we don't
-      // actually need to divide by N or to use base-2 logarithms, since N is constant over the
-      // values we are comparing, and of course lg x is a constant multiple of ln x. We're only
-      // interested in knowing which guess gets the maximum value and constant terms won't change
-      // that.
-      double entropy = scoreCounts.entrySet().stream()
-          .mapToDouble(Multiset.Entry::getCount)
-          .map(p -> -p * Math.log(p))
-          .sum();
-      if (entropy > bestEntropy || (entropy == bestEntropy && guessIsConsistent && !bestIsConsistent)) {
+    for (int i = 0; i < wordle.allowedCount; i++) {
+      int ordinal = wordle.allowedGuesses[i];
+      int guess = wordle.dict.guessCode(ordinal);
+      boolean guessIsConsistent = wordle.consistentOrdinals.get(ordinal);
+      long nLogN = nLogNs[i];
+      if (nLogN < bestNLogN || (nLogN == bestNLogN && guessIsConsistent && !bestIsConsistent)) {
         if (false) {
-          System.out.printf("better: old best %s entropy %f, new best %s entropy %f\n",
-              bestGuesses.stream().map(Dictionary::decode).toList(), bestEntropy, Dictionary.decode(guess), entropy);
+          System.out.printf("better: old best %s nlogn %d, new best %s nlogn %d\n",
+              bestGuesses.stream().map(Dictionary::decode).toList(), bestNLogN, Dictionary.decode(guess), nLogN);
         }
         bestGuesses.clear();
         bestGuesses.add(guess);
-        bestEntropy = entropy;
+        bestNLogN = nLogN;
         bestIsConsistent = guessIsConsistent;
-      } else if (entropy == bestEntropy && bestGuesses.size() < 10 && guessIsConsistent == bestIsConsistent) {
+      } else if (nLogN == bestNLogN && bestGuesses.size() < 10 && guessIsConsistent == bestIsConsistent) {
         bestGuesses.add(guess);
         if (false) {
           System.out.printf("same: guesses now %s\n", bestGuesses.stream().map(Dictionary::decode).toList());
@@ -201,25 +573,93 @@ public class Wordle {
     if (bestGuesses.isEmpty()) {
       throw new IllegalStateException("could not find a compatible word");
     }
+    recordChosen(bestGuesses.get(0));
     return ImmutableList.copyOf(bestGuesses);
   }
 
-  private static ScoreList solve(Dictionary dict, ScoreFactory scoreFactory, Guesser guesser, int actual) {
+  /**
+   * Chooses guesses that minimize the expected weight of the words that remain possible after the
+   * guess, according to the {@linkplain Dictionary#weightOfOrdinal prior weights} of the
+   * dictionary. If the consistent words that get score s have total weight W_s, and W is the total
+   * weight of all the consistent words, then the probability of score s is W_s/W and the expected
+   * remaining weight is Σ W_s²/W. A consistent guess g is also the answer with probability w_g/W,
+   * and then nothing remains, so w_g² is not counted. Since W is the same for every guess, we
+   * minimize Σ W_s² - [g consistent] w_g². When every weight is 1, this is Irving's metric, except
+   * that a consistent guess gets a bonus of 1 rather than only winning ties.
+   */
+  static ImmutableList<Integer> weightedGuesses(Wordle wordle) {
+    int[] weights = wordle.consistentWeights();
+    long maxWeight = 0;
+    for (int i = 0; i < wordle.consistentWords.length; i++) {
+      maxWeight = Math.max(maxWeight, weights[i]);
+    }
+    // The sum of squares of a guess depends only on its partition, so it can be shared between
+    // guesses with the same partition. The consistent guesses subtract their own weight squared
+    // afterwards, so one whose sum is only a little above the bound might still be the best.
+    // Allowing for that, a sum is only cut short if it exceeds the bound by more than the largest
+    // possible subtraction.
+    long slack = maxWeight * maxWeight;
+    long[] sums = wordle.evaluate(
+        (histogram, scoreFactory, guess, candidates, bound) ->
+            histogram.weightedSumOfSquaresWithin(
+                scoreFactory, guess, candidates, weights, LongMath.saturatedAdd(bound, slack)));
+    ArrayList<Integer> bestGuesses = new ArrayList<>();
+    long bestCost = Long.MAX_VALUE;
+    boolean bestIsConsistent = false;
+    for (int i = 0; i < wordle.allowedCount; i++) {
+      int ordinal = wordle.allowedGuesses[i];
+      int guess = wordle.dict.guessCode(ordinal);
+      boolean guessIsConsistent = wordle.consistentOrdinals.get(ordinal);
+      long cost = sums[i];
+      if (guessIsConsistent && cost != Long.MAX_VALUE) {
+        long weight = wordle.dict.weightOfOrdinal(ordinal);
+        cost -= weight * weight;
+      }
+      if (cost < bestCost || (cost == bestCost && guessIsConsistent && !bestIsConsistent)) {
+        bestGuesses.clear();
+        bestGuesses.add(guess);
+        bestCost = cost;
+        bestIsConsistent = guessIsConsistent;
+      } else if (cost == bestCost && bestGuesses.size() < 10 && guessIsConsistent == bestIsConsistent) {
+        bestGuesses.add(guess);
+      }
+    }
+    if (bestGuesses.isEmpty()) {
+      throw new IllegalStateException("could not find a compatible word");
+    }
+    recordChosen(bestGuesses.get(0));
+    return ImmutableList.copyOf(bestGuesses);
+  }
+
+  /**
+   * The prior weights of the {@link #consistentWords()}, in the same order. The array belongs to
+   * the {@link Workspace} and may have more elements than there are consistent words.
+   */
+  int[] consistentWeights() {
+    int[] weights = workspace.weights(consistentWords.length);
+    for (int i = consistentOrdinals.nextSetBit(0), j = 0; i >= 0; i = consistentOrdinals.nextSetBit(i + 1)) {
+      weights[j++] = dict.weightOfOrdinal(i);
+    }
+    return weights;
+  }
+
+  private static ScoreList solve(Dictionary dict, ScoreFactory scoreFactory, Guesser guesser, boolean parallel, int actual) {
     int startCode = Dictionary.encode("plaid");
-    return solve(dict, scoreFactory, guesser, actual, ScoreList.EMPTY.plus(startCode, scoreFactory.score(startCode, actual)));
+    return solve(dict, scoreFactory, guesser, parallel, actual, ScoreList.EMPTY.plus(startCode, scoreFactory.score(startCode, actual)));
   }
 
-  private static ScoreList solve(Dictionary dict, ScoreFactory scoreFactory, Guesser guesser, int actual, ScoreList scores) {
+  private static ScoreList solve(Dictionary dict, ScoreFactory scoreFactory, Guesser guesser, boolean parallel, int actual, ScoreList scores) {
     if (scores.solved()) {
       return scores;
     }
-    Wordle wordle = new Wordle(dict, scoreFactory, scores, DEFAULT_MODE);
-    ImmutableList<Integer> guesses = guesser.guesses(wordle);
+    // Each turn's position is finished with before the next one is constructed, so they can all
+    // share the thread's workspace.
+    Wordle wordle = new Wordle(dict, scoreFactory, scores, DEFAULT_MODE, parallel, Workspace.forThread());
+    ImmutableList<Integer> guesses = timedGuesses(guesser, wordle);
     Integer guess;
     if (false) {
-      ImmutableSet<Integer> solutionWords = dict.solutionWords();
       guess =
-        guesses.stream().filter(solutionWords::contains).findFirst().orElse(guesses.get(0));
+        guesses.stream().filter(dict::isSolution).findFirst().orElse(guesses.get(0));
     } else {
       guess = guesses.get(0);
     }
@@ -227,7 +667,7 @@ public class Wordle {
       throw new IllegalStateException("With scores " + scores + ", guessed " + guess);
     }
     Score score = scoreFactory.score(guess, actual);
-    return solve(dict, scoreFactory, guesser, actual, scores.plus(guess, score));
+    return solve(dict, scoreFactory, guesser, parallel, actual, scores.plus(guess, score));
   }
 
   private static void solveAll(Guesser guesser) {
@@ -237,12 +677,17 @@ public class Wordle {
     long total = 0;
     int max = 0;
     int n = 0;
+    // The progress lines report the elapsed time and ETA, so this is needed even without metrics.
     long startTime = System.nanoTime();
     List<Integer> pessimal = new ArrayList<>();
     List<Integer> optimal = new ArrayList<>();
     for (int actual : dict.solutionWords()) {
       ScoreList initial = ScoreList.EMPTY.plus(starting, Score.of(starting, actual));
-      ScoreList solved = solve(dict, DEFAULT_SCORE_FACTORY, guesser, actual, initial);
+      long gameStartTime = Metrics.ENABLED ? System.nanoTime() : 0;
+      ScoreList solved = solve(dict, DEFAULT_SCORE_FACTORY, guesser, true, actual, initial);
+      if (Metrics.ENABLED) {
+        Metrics.gamesSolved(1, System.nanoTime() - gameStartTime);
+      }
       System.out.println(solved);
       int size = solved.size();
       if (size >= 6) {
@@ -271,50 +716,104 @@ public class Wordle {
     }
     System.out.printf("worst cases (%d): %s\n", pessimal.size(), pessimal.stream().map(Dictionary::decode).toList());
     System.out.printf("best cases (%d): %s\n", optimal.size(), optimal.stream().map(Dictionary::decode).toList());
+    if (Metrics.ENABLED) {
+      Metrics.dump(System.out);
+    }
   }
 
-  record TotalAndMax(long total, int max) {}
+  record TotalAndMax(long total, int max) {
+    static final TotalAndMax EMPTY = new TotalAndMax(0, 0);
+
+    /** Combines the results for two disjoint sets of games. */
+    TotalAndMax plus(TotalAndMax that) {
+      return new TotalAndMax(this.total + that.total, Math.max(this.max, that.max));
+    }
+  }
 
   private static TotalAndMax solveAllStarting(Dictionary dict, ScoreFactory scoreFactory, Guesser guesser, int starting) {
+    return solveAllStarting(dict, scoreFactory, guesser, starting, dict.solutionWords().asList());
+  }
+
+  /**
+   * Solves the games whose solutions are the elements {@code from} (inclusive) to {@code to}
+   * (exclusive) of {@code dict.solutionWords()}, always starting with {@code starting}.
+   */
+  static TotalAndMax solveRange(Dictionary dict, Guesser guesser, int starting, int from, int to) {
+    return solveAllStarting(
+        dict, DEFAULT_SCORE_FACTORY, guesser, starting, dict.solutionWords().asList().subList(from, to));
+  }
+
+  private static TotalAndMax solveAllStarting(
+      Dictionary dict, ScoreFactory scoreFactory, Guesser guesser, int starting, List<Integer> actuals) {
+    long startTime = Metrics.ENABLED ? System.nanoTime() : 0;
     long total = 0;
     int max = 0;
-    for (int actual : dict.solutionWords()) {
+    for (int actual : actuals) {
       ScoreList initial = ScoreList.EMPTY.plus(starting, scoreFactory.score(starting, actual));
-      ScoreList solved = solve(dict, scoreFactory, guesser, actual, initial);
+      ScoreList solved = solve(dict, scoreFactory, guesser, false, actual, initial);
       int size = solved.size();
       max = Math.max(max, size);
       total += size;
     }
+    if (Metrics.ENABLED) {
+      Metrics.gamesSolved(actuals.size(), System.nanoTime() - startTime);
+    }
     return new TotalAndMax(total, max);
   }
 
   private record Result(int starting, TotalAndMax totalAndMax) {}
 
-  private static final Result SENTINEL_RESULT = new Result(0, new TotalAndMax(0, 0));
+  private static final Result SENTINEL_RESULT = new Result(0, TotalAndMax.EMPTY);
+
+  /** The file where {@link #parallelSolve} and {@link DistributedSolve} record their results. */
+  static final Path START_WORDS_OUTPUT =
+      Paths.get(StandardSystemProperty.USER_HOME.value() + "/wordlestart.txt");
+
+  /**
+   * Returns the starting words that already have results in {@code output}, so that an interrupted
+   * run can be resumed.
+   */
+  static ImmutableSet<Integer> existingStartWords(Path output) throws IOException {
+    if (!Files.exists(output)) {
+      return ImmutableSet.of();
+    }
+    ImmutableSet<Integer> existing;
+    try (Stream<String> lines = Files.lines(output)) {
+      existing = lines
+          .map(s -> {
+            int space = s.indexOf(' ');
+            return Dictionary.encode(s.substring(0, space));
+          })
+          .collect(toImmutableSet());
+    }
+    if (!existing.isEmpty()) {
+      System.out.printf(
+          "existing %s..%s\n",
+          Dictionary.decode(Iterables.getFirst(existing, 0)),
+          Dictionary.decode(Iterables.getLast(existing)));
+    }
+    return existing;
+  }
+
+  /** Writes the result for one starting word to {@code writer}, in the format of wordlestart.txt. */
+  static void writeStartResult(
+      PrintWriter writer, int starting, TotalAndMax totalAndMax, long elapsedNanos, int done) {
+    writer.printf(
+        "%s %d %d %ds %.1fs per\n",
+        Dictionary.decode(starting),
+        totalAndMax.total,
+        totalAndMax.max,
+        elapsedNanos / 1_000_000_000, elapsedNanos / 1e9 / done);
+    writer.flush();
+  }
 
-  // Try every possible solution against every possible starting word. This takes days.
+  // Try every possible solution against every possible starting word. This takes days. See
+  // DistributedSolve for a way to spread the work across processes and machines.
   private static void parallelSolve(Dictionary dict, Guesser guesser)
       throws IOException, InterruptedException, ExecutionException {
     ScoreFactory scoreFactory = DEFAULT_SCORE_FACTORY; // new ScoreCache(dict);
-    Path output = Paths.get(StandardSystemProperty.USER_HOME.value() + "/wordlestart.txt");
-    ImmutableSet<Integer> existing;
-    if (Files.exists(output)) {
-      existing =
-          Files.lines(output)
-              .map(s -> {
-                int space = s.indexOf(' ');
-                return Dictionary.encode(s.substring(0, space));
-              })
-              .collect(toImmutableSet());
-      if (!existing.isEmpty()) {
-        System.out.printf(
-            "existing %s..%s\n",
-            Dictionary.decode(Iterables.getFirst(existing, 0)),
-            Dictionary.decode(Iterables.getLast(existing)));
-      }
-    } else {
-      existing = ImmutableSet.of();
-    }
+    Path output = START_WORDS_OUTPUT;
+    ImmutableSet<Integer> existing = existingStartWords(output);
     int nThreads = 10;
     ImmutableSet<Integer> startWords = dict.solutionWords();
     startWords = ImmutableSet.copyOf(Sets.difference(startWords, existing));
@@ -340,6 +839,8 @@ public class Wordle {
     for (int i = 0; i < nThreads; i++) {
       futures.add(executor.submit(task));
     }
+    // Each result line records the elapsed time, so this is needed even without metrics. It is read
+    // once per starting word, not once per game.
     long startTime = System.nanoTime();
     try (PrintWriter writer =
         new PrintWriter(Files.newBufferedWriter(output, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
@@ -351,14 +852,8 @@ public class Wordle {
           --remainingThreads;
         } else {
           done++;
-          long elapsed = System.nanoTime() - startTime;
-          writer.printf(
-              "%s %d %d %ds %.1fs per\n",
-              Dictionary.decode(result.starting),
-              result.totalAndMax.total,
-              result.totalAndMax.max,
-              elapsed / 1_000_000_000, elapsed / 1e9 / done);
-          writer.flush();
+          writeStartResult(
+              writer, result.starting, result.totalAndMax, System.nanoTime() - startTime, done);
         }
       }
     }
@@ -377,8 +872,8 @@ public class Wordle {
     int irvingBetter = 0;
     int irvingMuchBetter = 0;
     for (int actual : dict.solutionWords()) {
-      ScoreList knuthList = solve(dict, DEFAULT_SCORE_FACTORY, knuth, actual);
-      ScoreList irvingList = solve(dict, DEFAULT_SCORE_FACTORY, irving, actual);
+      ScoreList knuthList = solve(dict, DEFAULT_SCORE_FACTORY, knuth, true, actual);
+      ScoreList irvingList = solve(dict, DEFAULT_SCORE_FACTORY, irving, true, actual);
       int cmp = irvingList.size() - knuthList.size();
       if (cmp != 0) {
         System.out.printf("For %s:\n  knuth  %s\n  irving %s\n\n", Dictionary.decode(actual), knuthList, irvingList);
@@ -454,7 +949,7 @@ public class Wordle {
       return;
     }
     if (true) {
-      System.out.println(solve(Dictionary.create(), DEFAULT_SCORE_FACTORY, guesser, Dictionary.encode("knoll")));
+      System.out.println(solve(Dictionary.create(), DEFAULT_SCORE_FACTORY, guesser, true, Dictionary.encode("knoll")));
       return;
     }
     if (false) {
@@ -473,9 +968,13 @@ public class Wordle {
     Dictionary dict = Dictionary.create();
     for (int i = 0; i < args.length; i += 2) {
       String guess = args[i];
-      checkArgument(guess.length() == 5);
+      checkArgument(
+          guess.length() == dict.wordLength(),
+          "Guess %s does not have %s letters",
+          guess,
+          dict.wordLength());
       int guessCode = Dictionary.encode(guess);
-      if (!dict.guessWords().contains(guessCode)) {
+      if (!dict.isGuess(guessCode)) {
         System.err.printf("Guess %s is not in the dictionary\n", guess);
         System.exit(1);
       }
@@ -486,11 +985,11 @@ public class Wordle {
     ImmutableSet<Integer> possible = scores.possible(dict);
     System.out.printf("%d possible solution%s %s\n", possible.size(), possible.size() == 1 ? "" : "s",
         possible.size() < 20 ? possible.stream().map(Dictionary::decode).toList() : "");
-    Wordle wordle = new Wordle(dict, DEFAULT_SCORE_FACTORY, scores, DEFAULT_MODE);
+    Wordle wordle = new Wordle(dict, DEFAULT_SCORE_FACTORY, scores, DEFAULT_MODE, true);
     System.out.printf(
         "guesses: %s\n",
-        guesser.guesses(wordle).stream()
-            .map(i -> Dictionary.decode(i) + (dict.solutionWords().contains(i) ? "*" : ""))
+        timedGuesses(guesser, wordle).stream()
+            .map(i -> Dictionary.decode(i) + (dict.isSolution(i) ? "*" : ""))
             .collect(toImmutableList()));
   }
 }
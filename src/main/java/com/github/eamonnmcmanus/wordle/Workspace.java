@@ -0,0 +1,124 @@
+package com.github.eamonnmcmanus.wordle;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The working arrays of a {@link Wordle} position. Solving a game means constructing a position for
+ * every turn, and each position needs arrays with an element for every allowed guess, which quickly
+ * become garbage. A thread that solves one position after another can instead use
+ * {@link #forThread()}, so that every position reuses the same arrays. The arrays grow when needed
+ * and never shrink, so once a thread has solved a game or two, solving another allocates very
+ * little. What it does allocate is the small objects of each turn, such as the list that a
+ * {@link Wordle.Guesser} returns and the {@link ScoreList} node for the new score. Those belong to
+ * interfaces that much else uses, and they come to a few dozen bytes a turn.
+ *
+ * <p>A position that uses a shared workspace is only valid until the next position is constructed
+ * with the same workspace. Code that needs more than one position at a time should give each one
+ * its own {@code new Workspace()}.
+ */
+final class Workspace {
+  private static final ThreadLocal<Workspace> WORKSPACES = ThreadLocal.withInitial(Workspace::new);
+
+  /** Returns the workspace that positions constructed by the current thread can share. */
+  static Workspace forThread() {
+    return WORKSPACES.get();
+  }
+
+  // Bit i is set if the guess word with ordinal i is consistent with the scores of the position.
+  final BitSet consistentOrdinals = new BitSet();
+  // Bit i is set if the guess word with ordinal i is allowed in the position.
+  final BitSet allowedOrdinals = new BitSet();
+  // Bit i is set if allowed guess i was evaluated early to establish a bound.
+  final BitSet seeds = new BitSet();
+  // For each position, the letter that every consistent word has there, or -1 if they differ.
+  final int[] fixedLetters = new int[Dictionary.MAX_LENGTH];
+
+  private int[] allowedGuesses = new int[0];
+  private int[] filteredGuesses = new int[0];
+  private int[] representatives = new int[0];
+  private long[] longValues = new long[0];
+  private int[] weights = new int[0];
+
+  // An open-addressing hash table from partition signatures to indices of allowed guesses. A slot
+  // is occupied only if its stamp is the current generation, so the table is emptied by
+  // incrementing the generation rather than by clearing the arrays.
+  private int[] signatureKeys = new int[0];
+  private int[] signatureIndexes = new int[0];
+  private int[] signatureStamps = new int[0];
+  private int generation;
+
+  /** Returns an array with room for at least {@code capacity} allowed guesses. */
+  int[] allowedGuesses(int capacity) {
+    if (allowedGuesses.length < capacity) {
+      allowedGuesses = new int[capacity];
+    }
+    return allowedGuesses;
+  }
+
+  /** Returns an array for a subset of the allowed guesses, distinct from {@link #allowedGuesses}. */
+  int[] filteredGuesses(int capacity) {
+    if (filteredGuesses.length < capacity) {
+      filteredGuesses = new int[capacity];
+    }
+    return filteredGuesses;
+  }
+
+  int[] representatives(int capacity) {
+    if (representatives.length < capacity) {
+      representatives = new int[capacity];
+    }
+    return representatives;
+  }
+
+  long[] longValues(int capacity) {
+    if (longValues.length < capacity) {
+      longValues = new long[capacity];
+    }
+    return longValues;
+  }
+
+  /** Returns an array with room for the weights of at least {@code capacity} consistent words. */
+  int[] weights(int capacity) {
+    if (weights.length < capacity) {
+      weights = new int[capacity];
+    }
+    return weights;
+  }
+
+  /** Empties the signature table and makes sure it has room for {@code capacity} entries. */
+  void clearSignatures(int capacity) {
+    // Keep the load factor at most 1/2.
+    int size = Integer.highestOneBit(Math.max(capacity, 1)) << 2;
+    if (signatureKeys.length < size) {
+      signatureKeys = new int[size];
+      signatureIndexes = new int[size];
+      signatureStamps = new int[size];
+      generation = 0;
+    }
+    if (++generation == 0) {
+      Arrays.fill(signatureStamps, 0);
+      generation = 1;
+    }
+  }
+
+  /**
+   * Returns the index that {@code signature} is mapped to. If it is not mapped to anything yet, it
+   * is mapped to {@code index}, which is returned.
+   */
+  int signatureIndex(int signature, int index) {
+    int mask = signatureKeys.length - 1;
+    int h = signature * 0x9e3779b9;
+    for (int slot = (h ^ (h >>> 16)) & mask; ; slot = (slot + 1) & mask) {
+      if (signatureStamps[slot] != generation) {
+        signatureStamps[slot] = generation;
+        signatureKeys[slot] = signature;
+        signatureIndexes[slot] = index;
+        return index;
+      }
+      if (signatureKeys[slot] == signature) {
+        return signatureIndexes[slot];
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.Test;
+
+public class AbsurdleTest {
+  private static final ImmutableList<String> SOLUTIONS = ImmutableList.of(
+      "fight", "light", "might", "night", "right", "sight", "tight", "eight", "wight", "bight");
+  private static final ImmutableList<String> OTHER_GUESSES = ImmutableList.of(
+      "flame", "minor", "stern", "wheel", "bough");
+
+  private static Dictionary smallDictionary() {
+    return Dictionary.create(Iterables.concat(SOLUTIONS, OTHER_GUESSES), SOLUTIONS);
+  }
+
+  @Test
+  public void hostKeepsLargestPart() {
+    Absurdle absurdle = new Absurdle(Dictionary.create(), Score::of);
+    Absurdle.Move move = absurdle.play(absurdle.start(), Dictionary.encode("raise"));
+    assertThat(move.score().toString()).isEqualTo("-----");
+    int[] sizes = new int[Score.SLOT_VALUES];
+    for (int word : Dictionary.create().solutionWords()) {
+      sizes[Score.slots(Dictionary.encode("raise"), word)]++;
+    }
+    assertThat(move.position().cardinality()).isEqualTo(Arrays.stream(sizes).max().getAsInt());
+  }
+
+  @Test
+  public void shortestWin() {
+    Dictionary dict = smallDictionary();
+    Absurdle absurdle = new Absurdle(dict, Score::of);
+    ImmutableList<Integer> win = absurdle.solve(10);
+    assertThat(win).isNotEmpty();
+    // Check that the win is really a win.
+    BitSet position = absurdle.start();
+    for (int guess : win) {
+      position = absurdle.play(position, guess).position();
+    }
+    assertThat(absurdle.words(position)).containsExactly(win.get(win.size() - 1));
+    // Check that there is no shorter win, by trying every sequence of guesses.
+    assertThat(canWin(absurdle, dict, absurdle.start(), win.size() - 1)).isFalse();
+  }
+
+  private static boolean canWin(Absurdle absurdle, Dictionary dict, BitSet position, int n) {
+    if (n == 0) {
+      return false;
+    }
+    List<Integer> words = absurdle.words(position);
+    if (words.size() == 1) {
+      return true;
+    }
+    for (int guess : dict.guessWords()) {
+      BitSet next = absurdle.play(position, guess).position();
+      if (!next.equals(position) && canWin(absurdle, dict, next, n - 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
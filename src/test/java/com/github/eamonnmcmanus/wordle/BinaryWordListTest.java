@@ -0,0 +1,57 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+public class BinaryWordListTest {
+  private static final int[] CODES = {
+    Dictionary.encode("abide"), Dictionary.encode("knoll"), Dictionary.encode("zesty")
+  };
+  private static final int TEXT_CHECKSUM = 0x12345678;
+
+  @Test
+  public void roundTrip() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryWordList.write(CODES, TEXT_CHECKSUM, out);
+    int[] codes = BinaryWordList.read(new ByteArrayInputStream(out.toByteArray()), TEXT_CHECKSUM);
+    assertThat(codes).asList().containsExactly(CODES[0], CODES[1], CODES[2]).inOrder();
+  }
+
+  @Test
+  public void staleText() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryWordList.write(CODES, TEXT_CHECKSUM, out);
+    assertThat(BinaryWordList.read(new ByteArrayInputStream(out.toByteArray()), TEXT_CHECKSUM + 1))
+        .isNull();
+  }
+
+  @Test
+  public void badChecksum() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryWordList.write(CODES, TEXT_CHECKSUM, out);
+    byte[] bytes = out.toByteArray();
+    bytes[14] ^= 1;
+    IOException e = assertThrows(
+        IOException.class,
+        () -> BinaryWordList.read(new ByteArrayInputStream(bytes), TEXT_CHECKSUM));
+    assertThat(e).hasMessageThat().contains("checksum");
+  }
+
+  @Test
+  public void compiledResourcesMatchText() {
+    for (String resource : Dictionary.RESOURCES) {
+      int[] compiled = BinaryWordList.readIfPresent(resource);
+      assertThat(compiled).isNotNull();
+      int[] text =
+          Dictionary.readWords(Dictionary.class.getResource(resource)).stream()
+              .mapToInt(Dictionary::encode)
+              .toArray();
+      assertThat(compiled).isEqualTo(text);
+    }
+  }
+}
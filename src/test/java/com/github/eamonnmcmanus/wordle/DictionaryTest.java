@@ -1,7 +1,10 @@
 package com.github.eamonnmcmanus.wordle;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import org.junit.Test;
@@ -33,4 +36,90 @@ public class DictionaryTest {
   public void decode() {
     assertThat(Dictionary.decode(ABIDE_CODE)).isEqualTo("abide");
   }
+
+  @Test
+  public void membership() {
+    Dictionary dict = Dictionary.create();
+    for (int code : dict.guessWords()) {
+      assertThat(dict.isGuess(code)).isTrue();
+      assertThat(dict.isSolution(code)).isEqualTo(dict.solutionWords().contains(code));
+    }
+    assertThat(dict.isGuess(Dictionary.encode("zzzzz"))).isFalse();
+    assertThat(dict.isGuess(Dictionary.encode("aaaaa"))).isFalse();
+    assertThat(dict.isSolution(Dictionary.encode("aahed"))).isFalse();
+  }
+
+  @Test
+  public void ordinals() {
+    Dictionary dict = Dictionary.create();
+    int ordinal = 0;
+    for (int code : dict.guessWords()) {
+      assertThat(dict.guessOrdinal(code)).isEqualTo(ordinal);
+      assertThat(dict.guessCode(ordinal)).isEqualTo(code);
+      assertThat(dict.isSolutionOrdinal(ordinal)).isEqualTo(dict.isSolution(code));
+      ordinal++;
+    }
+    assertThat(dict.guessCount()).isEqualTo(ordinal);
+    assertThat(dict.solutionOrdinals().cardinality()).isEqualTo(dict.solutionWords().size());
+    assertThat(dict.guessOrdinal(Dictionary.encode("zzzzz"))).isEqualTo(-1);
+  }
+
+  @Test
+  public void otherLengths() {
+    ImmutableList<String> fours = ImmutableList.of("fact", "zany");
+    Dictionary four = Dictionary.create(fours, fours);
+    assertThat(four.wordLength()).isEqualTo(4);
+    assertThat(four.guessWords().stream().map(Dictionary::decode).toList())
+        .containsExactly("fact", "zany");
+    ImmutableList<String> sixes = ImmutableList.of("strand", "quartz");
+    Dictionary six = Dictionary.create(sixes, sixes);
+    assertThat(six.wordLength()).isEqualTo(6);
+    assertThat(six.guessWords().stream().map(Dictionary::decode).toList())
+        .containsExactly("strand", "quartz");
+    assertThat(Dictionary.create().wordLength()).isEqualTo(5);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Dictionary.create(ImmutableList.of("fact", "abide"), ImmutableList.of("fact")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Dictionary.create(ImmutableList.of("Bold"), ImmutableList.of()));
+  }
+
+  @Test
+  public void length() {
+    assertThat(Dictionary.length(Dictionary.encode("a"))).isEqualTo(1);
+    assertThat(Dictionary.length(Dictionary.encode("zany"))).isEqualTo(4);
+    assertThat(Dictionary.length(ABIDE_CODE)).isEqualTo(5);
+    assertThat(Dictionary.length(Dictionary.encode("zzzzzz"))).isEqualTo(6);
+  }
+
+  @Test
+  public void weights() {
+    Dictionary dict = Dictionary.create();
+    assertThat(dict.isWeighted()).isFalse();
+    assertThat(dict.weight(ABIDE_CODE)).isEqualTo(1);
+    assertThat(dict.weight(Dictionary.encode("aahed"))).isEqualTo(0);
+    Dictionary weighted =
+        dict.withWeights(ImmutableMap.of(ABIDE_CODE, 5, Dictionary.encode("aahed"), 2));
+    assertThat(weighted.isWeighted()).isTrue();
+    assertThat(weighted.solutionWords()).hasSize(2);
+    assertThat(weighted.weight(ABIDE_CODE)).isEqualTo(5);
+    assertThat(weighted.weight(Dictionary.encode("aahed"))).isEqualTo(2);
+    assertThat(weighted.weight(Dictionary.encode("abode"))).isEqualTo(0);
+  }
+
+  @Test
+  public void tiered() {
+    Dictionary standard = Dictionary.create();
+    Dictionary tiered = Dictionary.createTiered();
+    assertThat(tiered.guessWords()).isEqualTo(standard.guessWords());
+    assertThat(tiered.solutionWords()).containsAtLeastElementsIn(standard.solutionWords());
+    assertThat(tiered.solutionWords().size()).isGreaterThan(standard.solutionWords().size());
+    for (int word : standard.solutionWords()) {
+      assertThat(tiered.weight(word)).isEqualTo(Dictionary.TIER_WEIGHTS.get(0));
+    }
+    for (int word : tiered.solutionWords()) {
+      assertThat(Dictionary.TIER_WEIGHTS).contains(tiered.weight(word));
+    }
+  }
 }
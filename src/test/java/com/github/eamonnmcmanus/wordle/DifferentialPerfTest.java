@@ -0,0 +1,294 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+/**
+ * Checks the optimized scoring, filtering, and guessing code against straightforward versions built
+ * on {@link Score#of(int, int)} and {@link ScoreList}, over the full dictionary. This takes too
+ * long to run with the other tests, so it is only run in the {@code perf} profile.
+ */
+public class DifferentialPerfTest {
+  private static final Dictionary DICT = Dictionary.create();
+  private static final int[] SOLUTIONS =
+      DICT.solutionWords().stream().mapToInt(Integer::intValue).toArray();
+
+  @Test
+  public void slots() {
+    for (int i = 0; i < DICT.guessCount(); i++) {
+      int guess = DICT.guessCode(i);
+      for (int solution : SOLUTIONS) {
+        int expected = Score.of(guess, solution).slots();
+        if (Score.slots(guess, solution) != expected
+            || Wordle.DEFAULT_SCORE_FACTORY.slots(guess, solution) != expected) {
+          assertWithMessage("%s against %s", Dictionary.decode(guess), Dictionary.decode(solution))
+              .that(List.of(
+                  Score.slots(guess, solution), Wordle.DEFAULT_SCORE_FACTORY.slots(guess, solution)))
+              .containsExactly(expected, expected);
+        }
+      }
+    }
+  }
+
+  // The partition of the solutions made by every guess, compared with the metrics that Histogram
+  // computes without allocating a Score for each word.
+  @Test
+  public void histograms() {
+    Histogram histogram = new Histogram();
+    long[] nLogN = Histogram.nLogNTable(SOLUTIONS.length);
+    for (int i = 0; i < DICT.guessCount(); i++) {
+      int guess = DICT.guessCode(i);
+      Map<Integer, Integer> parts = partition(guess, SOLUTIONS);
+      long max = 0;
+      long sumOfSquares = 0;
+      long nLogNSum = 0;
+      for (int n : parts.values()) {
+        max = Math.max(max, n);
+        sumOfSquares += (long) n * n;
+        nLogNSum += nLogN[n];
+      }
+      String name = Dictionary.decode(guess);
+      histogram.tally(Score::of, guess, SOLUTIONS);
+      assertWithMessage("%s parts", name).that(histogram.size()).isEqualTo(parts.size());
+      for (Map.Entry<Integer, Integer> entry : parts.entrySet()) {
+        assertWithMessage("%s count", name)
+            .that(histogram.count(entry.getKey()))
+            .isEqualTo(entry.getValue());
+      }
+      ScoreFactory f = Wordle.DEFAULT_SCORE_FACTORY;
+      assertWithMessage("%s max", name)
+          .that(histogram.maxCountWithin(f, guess, SOLUTIONS, Long.MAX_VALUE))
+          .isEqualTo(max);
+      assertWithMessage("%s sum of squares", name)
+          .that(histogram.sumOfSquaresWithin(f, guess, SOLUTIONS, Long.MAX_VALUE))
+          .isEqualTo(sumOfSquares);
+      assertWithMessage("%s n ln n", name)
+          .that(histogram.nLogNWithin(f, guess, SOLUTIONS, Long.MAX_VALUE))
+          .isEqualTo(nLogNSum);
+    }
+  }
+
+  // The consistent words and the allowed guesses of every position reached in
+  // hard-mode-games.txt, compared with the ones that ScoreList finds by scoring each word.
+  @Test
+  public void consistentAndAllowed() throws IOException {
+    for (ScoreList scores : positions()) {
+      Wordle wordle = new Wordle(DICT, Score::of, scores, Wordle.Mode.HARD);
+      assertWithMessage("consistent after %s", scores)
+          .that(wordle.consistentWords())
+          .isEqualTo(consistent(scores));
+      assertWithMessage("allowed after %s", scores)
+          .that(allowedGuesses(wordle))
+          .isEqualTo(decode(allowed(DICT, scores, Wordle.Mode.HARD)));
+      Wordle consistentMode = new Wordle(DICT, Score::of, scores, Wordle.Mode.CONSISTENT);
+      assertWithMessage("allowed in consistent mode after %s", scores)
+          .that(allowedGuesses(consistentMode))
+          .isEqualTo(decode(allowed(DICT, scores, Wordle.Mode.CONSISTENT)));
+      BitSet hard = new BitSet();
+      hard.set(0, DICT.guessCount());
+      DICT.guessIndex().retainAllowedInHardMode(scores, hard);
+      assertWithMessage("allowed after %s", scores)
+          .that(decode(hard.stream().map(DICT::guessCode).boxed().toList()))
+          .isEqualTo(decode(allowed(DICT, scores, Wordle.Mode.HARD)));
+    }
+  }
+
+  @Test
+  public void knuthGuesses() throws IOException {
+    checkGuesser(Wordle::knuthGuesses, DifferentialPerfTest::maxMetric, DICT, true);
+  }
+
+  @Test
+  public void irvingGuesses() throws IOException {
+    checkGuesser(Wordle::irvingGuesses, DifferentialPerfTest::sumOfSquaresMetric, DICT, false);
+  }
+
+  // Histogram computes Σ n ln n in fixed point from a table, so this compares its choices with a
+  // search that evaluates the sum with Math.log instead. The two can round differently, so any
+  // guess whose sum is within TOLERANCE of the least one counts as a tie for the best.
+  @Test
+  public void neuwirthGuesses() throws IOException {
+    final double TOLERANCE = 1e-6;
+    for (ScoreList scores : positions()) {
+      Wordle wordle = new Wordle(DICT, Score::of, scores, Wordle.Mode.HARD);
+      int[] candidates = wordle.consistentWords();
+      Map<Integer, Double> values = new LinkedHashMap<>();
+      for (int guess : allowed(DICT, scores, Wordle.Mode.HARD)) {
+        double value = 0;
+        for (int n : partition(guess, candidates).values()) {
+          value += n * Math.log(n);
+        }
+        values.put(guess, value);
+      }
+      double best = values.values().stream().mapToDouble(v -> v).min().getAsDouble();
+      List<Integer> ties = values.keySet().stream()
+          .filter(guess -> values.get(guess) - best <= TOLERANCE)
+          .toList();
+      List<Integer> consistentTies = ties.stream()
+          .filter(guess -> scores.consistentWith(guess) && DICT.solutionWords().contains(guess))
+          .toList();
+      List<Integer> preferred = consistentTies.isEmpty() ? ties : consistentTies;
+      List<Integer> actual = Wordle.neuwirthGuesses(wordle);
+      assertWithMessage("guess ordinals after %s", scores)
+          .that(actual.stream().map(DICT::guessOrdinal).toList())
+          .isInStrictOrder();
+      assertWithMessage("guesses after %s", scores)
+          .that(decode(preferred))
+          .containsAtLeastElementsIn(decode(actual));
+      assertWithMessage("number of guesses after %s", scores)
+          .that(actual.size())
+          .isEqualTo(Math.min(10, preferred.size()));
+    }
+  }
+
+  @Test
+  public void weightedGuesses() throws IOException {
+    checkGuesser(
+        Wordle::weightedGuesses,
+        DifferentialPerfTest::weightedMetric,
+        Dictionary.createTiered(),
+        false);
+  }
+
+  private interface Metric {
+    long metric(Dictionary dict, int guess, Map<Integer, Integer> parts, Map<Integer, Long> weights);
+  }
+
+  private static long maxMetric(
+      Dictionary dict, int guess, Map<Integer, Integer> parts, Map<Integer, Long> weights) {
+    return parts.values().stream().mapToLong(n -> n).max().orElse(0);
+  }
+
+  private static long sumOfSquaresMetric(
+      Dictionary dict, int guess, Map<Integer, Integer> parts, Map<Integer, Long> weights) {
+    return parts.values().stream().mapToLong(n -> (long) n * n).sum();
+  }
+
+  // Σ W_s² over scores s, less the guess's own weight squared if it is consistent.
+  private static long weightedMetric(
+      Dictionary dict, int guess, Map<Integer, Integer> parts, Map<Integer, Long> weights) {
+    long sum = weights.values().stream().mapToLong(w -> w * w).sum();
+    if (parts.containsKey(Score.solved(dict.wordLength()).slots())) {
+      long weight = dict.weightOfOrdinal(dict.guessOrdinal(guess));
+      sum -= weight * weight;
+    }
+    return sum;
+  }
+
+  /**
+   * Checks that the guesser chooses the same guesses as a search over every allowed guess that
+   * partitions the consistent words with {@link Score#of(int, int)}. The best guesses are those
+   * with the least metric, and among those the consistent ones if there are any. The guessers
+   * return the first ten of those in dictionary order, except that Knuth's returns only the last.
+   */
+  private static void checkGuesser(
+      Wordle.Guesser guesser, Metric metric, Dictionary dict, boolean last) throws IOException {
+    for (ScoreList scores : positions()) {
+      Wordle wordle = new Wordle(dict, Score::of, scores, Wordle.Mode.HARD);
+      int[] candidates = wordle.consistentWords();
+      long best = Long.MAX_VALUE;
+      List<Integer> bestGuesses = new ArrayList<>();
+      boolean bestIsConsistent = false;
+      for (int guess : allowed(dict, scores, Wordle.Mode.HARD)) {
+        Map<Integer, Integer> parts = partition(guess, candidates);
+        Map<Integer, Long> weights = new HashMap<>();
+        for (int candidate : candidates) {
+          weights.merge(
+              Score.of(guess, candidate).slots(),
+              (long) dict.weightOfOrdinal(dict.guessOrdinal(candidate)),
+              Long::sum);
+        }
+        long value = metric.metric(dict, guess, parts, weights);
+        boolean isConsistent = scores.consistentWith(guess) && dict.solutionWords().contains(guess);
+        if (value < best || (value == best && isConsistent && !bestIsConsistent)) {
+          best = value;
+          bestGuesses.clear();
+          bestIsConsistent = isConsistent;
+        }
+        if (value == best && isConsistent == bestIsConsistent) {
+          bestGuesses.add(guess);
+        }
+      }
+      List<Integer> expected = last
+          ? List.of(bestGuesses.get(bestGuesses.size() - 1))
+          : bestGuesses.subList(0, Math.min(10, bestGuesses.size()));
+      assertWithMessage("guesses after %s", scores)
+          .that(decode(guesser.guesses(wordle)))
+          .isEqualTo(decode(expected));
+    }
+  }
+
+  private static List<String> allowedGuesses(Wordle wordle) {
+    return IntStream.range(0, wordle.allowedCount())
+        .mapToObj(i -> Dictionary.decode(wordle.allowedGuess(i)))
+        .toList();
+  }
+
+  private static List<String> decode(List<Integer> codes) {
+    return codes.stream().map(Dictionary::decode).toList();
+  }
+
+  private static Map<Integer, Integer> partition(int guess, int[] candidates) {
+    Map<Integer, Integer> parts = new LinkedHashMap<>();
+    for (int candidate : candidates) {
+      parts.merge(Score.of(guess, candidate).slots(), 1, Integer::sum);
+    }
+    return parts;
+  }
+
+  private static int[] consistent(ScoreList scores) {
+    return DICT.guessWords().stream()
+        .filter(DICT.solutionWords()::contains)
+        .filter(scores::consistentWith)
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  private static List<Integer> allowed(Dictionary dict, ScoreList scores, Wordle.Mode mode) {
+    List<Integer> allowed = new ArrayList<>();
+    for (int i = 0; i < dict.guessCount(); i++) {
+      int guess = dict.guessCode(i);
+      boolean ok = switch (mode) {
+        case NORMAL -> true;
+        case HARD -> scores.allowedInHardMode(guess);
+        case CONSISTENT -> scores.consistentWith(guess);
+      };
+      if (ok) {
+        allowed.add(guess);
+      }
+    }
+    return allowed;
+  }
+
+  // Every position before the last guess of a game in hard-mode-games.txt, including the empty
+  // one before the opener.
+  static ImmutableList<ScoreList> positions() throws IOException {
+    Map<String, ScoreList> positions = new LinkedHashMap<>();
+    positions.put("", ScoreList.EMPTY);
+    for (String line : Files.readAllLines(Paths.get("hard-mode-games.txt"))) {
+      if (!line.startsWith(" ")) {
+        continue;
+      }
+      ScoreList scores = ScoreList.EMPTY;
+      String[] turns = line.trim().split(" ");
+      for (int i = 0; i < turns.length - 1; i++) {
+        String[] guessAndScore = turns[i].split(":");
+        scores = scores.plus(Dictionary.encode(guessAndScore[0]), Score.parse(guessAndScore[1]));
+        positions.putIfAbsent(scores.toString(), scores);
+      }
+    }
+    return ImmutableList.copyOf(positions.values());
+  }
+}
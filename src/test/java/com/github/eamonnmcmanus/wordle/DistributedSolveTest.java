@@ -0,0 +1,156 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.github.eamonnmcmanus.wordle.Wordle.TotalAndMax;
+import com.google.common.collect.ImmutableList;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DistributedSolveTest {
+  @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+  private static final ImmutableList<String> START_WORDS = ImmutableList.of("crane", "plaid");
+  private static final int ANSWER_COUNT = 60;
+
+  @Test
+  public void workerProcesses() throws Exception {
+    Dictionary dict = Dictionary.create();
+    Path output = tmp.newFile("wordlestart.txt").toPath();
+    List<Integer> startWords = START_WORDS.stream().map(Dictionary::encode).toList();
+    try (DistributedSolve.Coordinator coordinator = new DistributedSolve.Coordinator(
+            0, startWords, ANSWER_COUNT, 25, "knuth", 2000, output);
+        Socket stalled = new Socket(InetAddress.getLoopbackAddress(), coordinator.port())) {
+      // This worker takes a lease and never finishes it, so the lease must be reassigned when it
+      // expires.
+      PrintWriter stalledOut =
+          new PrintWriter(new OutputStreamWriter(stalled.getOutputStream(), UTF_8), true);
+      BufferedReader stalledIn =
+          new BufferedReader(new InputStreamReader(stalled.getInputStream(), UTF_8));
+      stalledOut.println("LEASE");
+      String[] stalledLease = stalledIn.readLine().split(" ");
+      assertThat(stalledLease[0]).isEqualTo("WORK");
+
+      List<Process> workers = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        File log = tmp.newFile("worker" + i + ".log");
+        workers.add(
+            new ProcessBuilder(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp",
+                    System.getProperty("java.class.path"),
+                    DistributedSolve.class.getName(),
+                    "worker",
+                    InetAddress.getLoopbackAddress().getHostAddress(),
+                    String.valueOf(coordinator.port()),
+                    "1")
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start());
+      }
+      assertThat(coordinator.awaitCompletion(5, TimeUnit.MINUTES)).isTrue();
+      for (Process worker : workers) {
+        assertThat(worker.waitFor(1, TimeUnit.MINUTES)).isTrue();
+        assertThat(worker.exitValue()).isEqualTo(0);
+      }
+
+      // A late result for the expired lease is refused.
+      stalledOut.println("RESULT " + stalledLease[1] + " 0 0");
+      assertThat(stalledIn.readLine()).startsWith("ERROR ");
+    }
+
+    List<String> lines = Files.readAllLines(output);
+    assertThat(lines).hasSize(START_WORDS.size());
+    for (String line : lines) {
+      String[] fields = line.split(" ");
+      int starting = Dictionary.encode(fields[0]);
+      TotalAndMax expected =
+          Wordle.solveRange(dict, Wordle::knuthGuesses, starting, 0, ANSWER_COUNT);
+      assertThat(new TotalAndMax(Long.parseLong(fields[1]), Integer.parseInt(fields[2])))
+          .isEqualTo(expected);
+    }
+    assertThat(lines.stream().map(line -> line.split(" ")[0]).toList())
+        .containsExactlyElementsIn(START_WORDS);
+  }
+
+  @Test
+  public void expiredHolderCannotRelease() throws Exception {
+    Path output = tmp.newFile("wordlestart.txt").toPath();
+    // There is only one lease, and it expires after 200ms.
+    try (DistributedSolve.Coordinator coordinator = new DistributedSolve.Coordinator(
+            0, List.of(Dictionary.encode("crane")), 10, 10, "knuth", 200, output);
+        Connection second = new Connection(coordinator.port());
+        Connection third = new Connection(coordinator.port())) {
+      try (Connection first = new Connection(coordinator.port())) {
+        assertThat(first.request("LEASE")).startsWith("WORK 0 ");
+        Thread.sleep(300);
+        assertThat(second.request("LEASE")).startsWith("WORK 0 ");
+      }
+      // The first worker disconnecting must not take the lease away from the second one.
+      Thread.sleep(100);
+      assertThat(third.request("LEASE")).startsWith("WAIT ");
+      // Asking for a new lease gives up the old one, which is the only one, so it comes back.
+      assertThat(second.request("LEASE")).startsWith("WORK 0 ");
+      assertThat(third.request("LEASE")).startsWith("WAIT ");
+    }
+  }
+
+  @Test
+  public void onlyHolderCanComplete() throws Exception {
+    Path output = tmp.newFile("wordlestart.txt").toPath();
+    try (DistributedSolve.Coordinator coordinator = new DistributedSolve.Coordinator(
+            0, List.of(Dictionary.encode("crane")), 10, 10, "knuth", 200, output);
+        Connection first = new Connection(coordinator.port());
+        Connection second = new Connection(coordinator.port())) {
+      assertThat(first.request("LEASE")).startsWith("WORK 0 ");
+      Thread.sleep(300);
+      assertThat(second.request("LEASE")).startsWith("WORK 0 ");
+      // The first worker's lease expired and went to the second, so it can't complete it.
+      assertThat(first.request("RESULT 0 1 1")).startsWith("ERROR ");
+      assertThat(second.request("RESULT 1 1 1")).startsWith("ERROR ");
+      assertThat(second.request("RESULT -1 1 1")).startsWith("ERROR ");
+      assertThat(second.request("RESULT 0 30 4")).isEqualTo("OK");
+      assertThat(second.request("RESULT 0 30 4")).startsWith("ERROR ");
+      assertThat(coordinator.awaitCompletion(10, TimeUnit.SECONDS)).isTrue();
+    }
+    assertThat(Files.readAllLines(output)).hasSize(1);
+  }
+
+  private static class Connection implements AutoCloseable {
+    private final Socket socket;
+    private final PrintWriter out;
+    private final BufferedReader in;
+
+    Connection(int port) throws IOException {
+      this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+      this.out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), UTF_8), true);
+      this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+    }
+
+    String request(String line) throws IOException {
+      out.println(line);
+      return in.readLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+      socket.close();
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class GuessIndexTest {
+  private static final Dictionary DICT = Dictionary.create();
+  private static final GuessIndex INDEX = DICT.guessIndex();
+
+  // Compares the index with ScoreList for positions from random games, where the guesses include
+  // words with repeated letters that get a mixture of scores.
+  @Test
+  public void sameAsScoreList() {
+    Random random = new Random(42);
+    List<Integer> solutions = DICT.solutionWords().asList();
+    List<String> repeated = List.of("geese", "eerie", "llama", "sassy", "mamma", "error", "tepee");
+    for (int game = 0; game < 100; game++) {
+      int answer = solutions.get(random.nextInt(solutions.size()));
+      ScoreList scores = ScoreList.EMPTY;
+      for (int turn = 0; turn < 3; turn++) {
+        int guess = (turn == 0 && game % 2 == 0)
+            ? Dictionary.encode(repeated.get(random.nextInt(repeated.size())))
+            : DICT.guessCode(random.nextInt(DICT.guessCount()));
+        scores = scores.plus(guess, Score.of(guess, answer));
+        checkSameAsScoreList(scores);
+      }
+    }
+  }
+
+  private static void checkSameAsScoreList(ScoreList scores) {
+    int n = DICT.guessCount();
+    BitSet consistent = new BitSet();
+    consistent.set(0, n);
+    INDEX.retainConsistent(scores, consistent);
+    BitSet allowed = new BitSet();
+    allowed.set(0, n);
+    INDEX.retainAllowedInHardMode(scores, allowed);
+    for (int i = 0; i < n; i++) {
+      int code = DICT.guessCode(i);
+      assertWithMessage("%s consistent with %s", Dictionary.decode(code), scores)
+          .that(consistent.get(i))
+          .isEqualTo(scores.consistentWith(code));
+      assertWithMessage("%s allowed after %s", Dictionary.decode(code), scores)
+          .that(allowed.get(i))
+          .isEqualTo(scores.allowedInHardMode(code));
+    }
+  }
+
+  @Test
+  public void emptyScoreList() {
+    BitSet bits = new BitSet();
+    bits.set(0, DICT.guessCount());
+    INDEX.retainConsistent(ScoreList.EMPTY, bits);
+    INDEX.retainAllowedInHardMode(ScoreList.EMPTY, bits);
+    assertThat(bits.cardinality()).isEqualTo(DICT.guessCount());
+  }
+
+  // Score.of gives an ochre score to the first E of "speed" before the second one, so no answer
+  // gives a grey score to the first E and an ochre score to the second.
+  @Test
+  public void impossibleScore() {
+    int speed = Dictionary.encode("speed");
+    Score score = new Score(1 << 6, 5);
+    ScoreList scores = ScoreList.EMPTY.plus(speed, score);
+    BitSet bits = new BitSet();
+    bits.set(0, DICT.guessCount());
+    INDEX.retainConsistent(scores, bits);
+    assertThat(bits.isEmpty()).isTrue();
+    for (int i = 0; i < DICT.guessCount(); i++) {
+      assertThat(scores.consistentWith(DICT.guessCode(i))).isFalse();
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class HistogramTest {
+  private static final int[] CANDIDATES = {
+    Dictionary.encode("fight"),
+    Dictionary.encode("light"),
+    Dictionary.encode("might"),
+    Dictionary.encode("night"),
+    Dictionary.encode("eight"),
+  };
+
+  @Test
+  public void tally() {
+    Histogram histogram = new Histogram();
+    histogram.tally(Score::of, Dictionary.encode("pound"), CANDIDATES);
+    // night gets ---/- and the others get -----.
+    assertThat(histogram.size()).isEqualTo(2);
+    assertThat(histogram.count(Score.parse("---/-").slots())).isEqualTo(1);
+    assertThat(histogram.count(Score.parse("-----").slots())).isEqualTo(4);
+    assertThat(histogram.count(Score.SOLVED.slots())).isEqualTo(0);
+    assertThat(histogram.maxCount()).isEqualTo(4);
+    assertThat(histogram.sumOfSquares()).isEqualTo(17);
+  }
+
+  @Test
+  public void reuse() {
+    Histogram histogram = new Histogram();
+    histogram.tally(Score::of, Dictionary.encode("pound"), CANDIDATES);
+    histogram.tally(Score::of, Dictionary.encode("fight"), CANDIDATES);
+    // Every candidate other than fight gets -++++.
+    assertThat(histogram.size()).isEqualTo(2);
+    assertThat(histogram.count(Score.SOLVED.slots())).isEqualTo(1);
+    assertThat(histogram.count(Score.parse("-++++").slots())).isEqualTo(4);
+    assertThat(histogram.count(Score.parse("-----").slots())).isEqualTo(0);
+  }
+
+  @Test
+  public void empty() {
+    Histogram histogram = new Histogram();
+    assertThat(histogram.size()).isEqualTo(0);
+    assertThat(histogram.maxCount()).isEqualTo(Integer.MAX_VALUE);
+    assertThat(histogram.sumOfSquares()).isEqualTo(0);
+  }
+
+  @Test
+  public void bounded() {
+    Histogram histogram = new Histogram();
+    int guess = Dictionary.encode("pound");
+    assertThat(histogram.maxCountWithin(Score::of, guess, CANDIDATES, 4)).isEqualTo(4);
+    assertThat(histogram.maxCountWithin(Score::of, guess, CANDIDATES, 3)).isEqualTo(Long.MAX_VALUE);
+    assertThat(histogram.sumOfSquaresWithin(Score::of, guess, CANDIDATES, 17)).isEqualTo(17);
+    assertThat(histogram.sumOfSquaresWithin(Score::of, guess, CANDIDATES, 16))
+        .isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void nLogN() {
+    Histogram histogram = new Histogram();
+    int guess = Dictionary.encode("pound");
+    histogram.tally(Score::of, guess, CANDIDATES);
+    // Counts 4 and 1, so Σ k ln k is 4 ln 4.
+    double expected = 4 * Math.log(4) * (1L << Histogram.N_LOG_N_SHIFT);
+    // ln 4 is twice the rounded ln 2, so the error is at most 4 × 2 × 1/2 units.
+    assertThat((double) histogram.nLogN()).isWithin(4.0).of(expected);
+    assertThat(histogram.nLogNWithin(Score::of, guess, CANDIDATES, histogram.nLogN()))
+        .isEqualTo(histogram.nLogN());
+    assertThat(histogram.nLogNWithin(Score::of, guess, CANDIDATES, histogram.nLogN() - 1))
+        .isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void nLogNTableIsExact() {
+    long[] table = Histogram.nLogNTable(100);
+    assertThat(table.length).isGreaterThan(100);
+    assertThat(table[1]).isEqualTo(0);
+    // 4 ln 4 = 4 × (2 ln 2) and 6 ln 6 = 3 × (2 ln 2) + 2 × (3 ln 3), exactly.
+    assertThat(table[4]).isEqualTo(4 * table[2]);
+    assertThat(table[6]).isEqualTo(3 * table[2] + 2 * table[3]);
+    assertThat(table[12]).isEqualTo(12 * table[2] + 4 * table[3]);
+    for (int k = 2; k <= 100; k++) {
+      assertThat(table[k]).isGreaterThan(table[k - 1]);
+    }
+  }
+
+  @Test
+  public void weighted() {
+    Histogram histogram = new Histogram();
+    int guess = Dictionary.encode("pound");
+    int[] ones = {1, 1, 1, 1, 1};
+    assertThat(histogram.weightedSumOfSquaresWithin(Score::of, guess, CANDIDATES, ones, 17))
+        .isEqualTo(17);
+    // night, with weight 4, gets ---/- and the others, with total weight 1 + 2 + 3 + 5, get -----.
+    int[] weights = {1, 2, 3, 4, 5};
+    long expected = 4 * 4 + 11 * 11;
+    assertThat(histogram.weightedSumOfSquaresWithin(Score::of, guess, CANDIDATES, weights, 1000))
+        .isEqualTo(expected);
+    assertThat(histogram.weight(Score.parse("---/-").slots())).isEqualTo(4);
+    assertThat(histogram.weight(Score.parse("-----").slots())).isEqualTo(11);
+    assertThat(
+            histogram.weightedSumOfSquaresWithin(Score::of, guess, CANDIDATES, weights, expected - 1))
+        .isEqualTo(Long.MAX_VALUE);
+    // A later unweighted tally leaves no stale weights behind.
+    histogram.tally(Score::of, Dictionary.encode("fight"), CANDIDATES);
+    assertThat(histogram.weight(Score.parse("-----").slots())).isEqualTo(0);
+  }
+}
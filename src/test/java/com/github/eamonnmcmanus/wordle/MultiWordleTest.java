@@ -0,0 +1,109 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class MultiWordleTest {
+  private static final ImmutableList<String> SOLUTIONS = ImmutableList.of(
+      "fight", "light", "might", "night", "right", "sight", "tight", "eight", "wight", "bight",
+      "flame", "frame", "blame", "shame");
+  private static final ImmutableList<String> OTHER_GUESSES = ImmutableList.of(
+      "minor", "stern", "wheel", "bough", "flirt");
+
+  private static Dictionary smallDictionary() {
+    return Dictionary.create(Iterables.concat(SOLUTIONS, OTHER_GUESSES), SOLUTIONS);
+  }
+
+  @Test
+  public void jointMetricsMatchTuples() {
+    Dictionary dict = smallDictionary();
+    int first = Dictionary.encode("stern");
+    // Three boards, two of which have the same candidates, plus one solved board that should be
+    // ignored.
+    List<ScoreList> boards = ImmutableList.of(
+        ScoreList.EMPTY.plus(first, Score.of(first, Dictionary.encode("fight"))),
+        ScoreList.EMPTY.plus(first, Score.of(first, Dictionary.encode("light"))),
+        ScoreList.EMPTY.plus(first, Score.of(first, Dictionary.encode("flame"))),
+        ScoreList.EMPTY.plus(first, Score.of(first, first)));
+    MultiWordle position = new MultiWordle(dict, Score::of, boards);
+    assertThat(position.unsolvedBoards()).isEqualTo(3);
+    // The Neuwirth value is Σ (1/N) Σ k ln k over the boards, in Histogram.nLogN() fixed point and
+    // multiplied by the product of the distinct board sizes N. The joint entropy is Σ ln N minus
+    // that sum.
+    double neuwirthScale = 0x1p40;
+    double lnSizes = 0;
+    for (ImmutableList<Integer> board : position.candidates()) {
+      lnSizes += Math.log(board.size());
+    }
+    for (ImmutableList<Integer> board : ImmutableSet.copyOf(position.candidates())) {
+      neuwirthScale *= board.size();
+    }
+    for (int guess : dict.guessWords()) {
+      Map<List<Integer>, Integer> parts = new HashMap<>();
+      tally(guess, position.candidates(), 0, ImmutableList.of(), parts);
+      long max = parts.values().stream().mapToLong(Integer::intValue).max().getAsLong();
+      long squareSum = parts.values().stream().mapToLong(k -> (long) k * k).sum();
+      long total = parts.values().stream().mapToLong(Integer::intValue).sum();
+      double entropy = parts.values().stream()
+          .mapToDouble(k -> -(double) k / total * Math.log((double) k / total))
+          .sum();
+      String word = Dictionary.decode(guess);
+      assertWithMessage(word)
+          .that(position.evaluate(MultiWordle.Metric.KNUTH, guess))
+          .isEqualTo(BigInteger.valueOf(max));
+      assertWithMessage(word)
+          .that(position.evaluate(MultiWordle.Metric.IRVING, guess))
+          .isEqualTo(BigInteger.valueOf(squareSum));
+      double neuwirth =
+          position.evaluate(MultiWordle.Metric.NEUWIRTH, guess).doubleValue() / neuwirthScale;
+      assertWithMessage(word).that(lnSizes - neuwirth).isWithin(1e-9).of(entropy);
+    }
+  }
+
+  // Counts the joint parts by forming every tuple of candidates, one from each board.
+  private static void tally(
+      int guess,
+      List<ImmutableList<Integer>> boards,
+      int board,
+      List<Integer> scores,
+      Map<List<Integer>, Integer> parts) {
+    if (board == boards.size()) {
+      parts.merge(scores, 1, Integer::sum);
+      return;
+    }
+    for (int candidate : boards.get(board)) {
+      List<Integer> next = ImmutableList.<Integer>builder()
+          .addAll(scores)
+          .add(Score.slots(guess, candidate))
+          .build();
+      tally(guess, boards, board + 1, next, parts);
+    }
+  }
+
+  @Test
+  public void solveQuordle() {
+    Dictionary dict = Dictionary.create();
+    ImmutableList<String> actuals = ImmutableList.of("crane", "vivid", "elbow", "tryst");
+    for (MultiWordle.Metric metric : MultiWordle.Metric.values()) {
+      ImmutableList<Integer> guesses = MultiWordle.solve(
+          dict,
+          Score::of,
+          metric,
+          true,
+          actuals.stream().mapToInt(Dictionary::encode).toArray());
+      assertWithMessage(metric.toString())
+          .that(guesses.stream().map(Dictionary::decode).toList())
+          .containsAtLeastElementsIn(actuals);
+      assertWithMessage(metric.toString()).that(guesses.size()).isAtMost(9);
+    }
+  }
+}
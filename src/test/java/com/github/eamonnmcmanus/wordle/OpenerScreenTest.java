@@ -0,0 +1,85 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.github.eamonnmcmanus.wordle.OpenerScreen.Outcome;
+import com.github.eamonnmcmanus.wordle.OpenerScreen.Row;
+import com.github.eamonnmcmanus.wordle.Wordle.TotalAndMax;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class OpenerScreenTest {
+  private static final Comparator<TotalAndMax> RESULT_ORDER =
+      Comparator.comparingLong(TotalAndMax::total).thenComparingInt(TotalAndMax::max);
+
+  // A dictionary with every 40th solution and every 25th guess of the real one, so that every game
+  // can be solved with every opener quickly.
+  private static Dictionary sampledDictionary() {
+    Dictionary full = Dictionary.create();
+    List<String> solutions = new ArrayList<>();
+    ImmutableList<Integer> fullSolutions = full.solutionWords().asList();
+    for (int i = 0; i < fullSolutions.size(); i += 40) {
+      solutions.add(Dictionary.decode(fullSolutions.get(i)));
+    }
+    Set<String> guesses = new LinkedHashSet<>(solutions);
+    for (int i = 0; i < full.guessCount(); i += 25) {
+      guesses.add(Dictionary.decode(full.guessCode(i)));
+    }
+    return Dictionary.create(guesses, solutions);
+  }
+
+  @Test
+  public void boundsAreLowerBounds() {
+    Dictionary dict = sampledDictionary();
+    OpenerScreen screen = new OpenerScreen(dict, Score::of);
+    int solutionCount = dict.solutionWords().size();
+    for (int opener : dict.solutionWords()) {
+      TotalAndMax partition = screen.firstTurn(opener).bound();
+      TotalAndMax lookahead = screen.lookaheadBound(opener);
+      TotalAndMax actual = Wordle.solveRange(dict, Wordle::knuthGuesses, opener, 0, solutionCount);
+      String word = Dictionary.decode(opener);
+      assertWithMessage(word).that(partition.total()).isAtMost(lookahead.total());
+      assertWithMessage(word).that(partition.max()).isAtMost(lookahead.max());
+      assertWithMessage(word).that(lookahead.total()).isAtMost(actual.total());
+      assertWithMessage(word).that(lookahead.max()).isAtMost(actual.max());
+    }
+  }
+
+  @Test
+  public void screenFindsBestOpener() throws Exception {
+    Dictionary dict = sampledDictionary();
+    OpenerScreen screen = new OpenerScreen(dict, Score::of);
+    int solutionCount = dict.solutionWords().size();
+    List<Integer> openers = IntStream.range(0, dict.guessCount())
+        .mapToObj(dict::guessCode)
+        .toList();
+    TotalAndMax best = openers.stream()
+        .map(opener -> Wordle.solveRange(dict, Wordle::irvingGuesses, opener, 0, solutionCount))
+        .min(RESULT_ORDER)
+        .get();
+    List<Row> progress = new ArrayList<>();
+    ImmutableList<Row> rows = screen.screen(Wordle::irvingGuesses, openers, 2, progress::add);
+    assertThat(rows).hasSize(openers.size());
+    assertThat(progress).containsExactlyElementsIn(rows);
+    TotalAndMax screenedBest = rows.stream()
+        .filter(row -> row.outcome() == Outcome.SOLVED)
+        .map(Row::result)
+        .min(RESULT_ORDER)
+        .get();
+    assertThat(screenedBest).isEqualTo(best);
+    assertThat(rows.stream().filter(row -> row.outcome() != Outcome.SOLVED).count())
+        .isGreaterThan(0L);
+    for (Row row : rows) {
+      if (row.outcome() != Outcome.SOLVED) {
+        assertThat(RESULT_ORDER.compare(row.bound(), row.best().result())).isGreaterThan(0);
+      }
+    }
+  }
+}
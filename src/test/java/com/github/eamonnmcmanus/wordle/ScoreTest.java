@@ -1,6 +1,7 @@
 package com.github.eamonnmcmanus.wordle;
 
 import static com.google.common.collect.ImmutableMultiset.toImmutableMultiset;
+import static org.junit.Assert.assertThrows;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.HashMultiset;
@@ -34,6 +35,25 @@ public class ScoreTest {
     expect.that(Score.of("aahed", "drama").toString()).isEqualTo("//--/");
   }
 
+  @Test
+  public void otherLengths() {
+    expect.that(Score.of("zany", "nazi").toString()).isEqualTo("/+/-");
+    expect.that(Score.of("zany", "zany").isSolved()).isTrue();
+    expect.that(Score.of("strand", "stands").toString()).isEqualTo("++-///");
+    expect.that(Score.of("strand", "strand")).isEqualTo(Score.solved(6));
+    expect.that(Score.parse("+/-+").length()).isEqualTo(4);
+    expect.that(Score.parse("+/-+").toString()).isEqualTo("+/-+");
+    // The same slots for different lengths are different scores.
+    expect.that(Score.parse("+++++")).isNotEqualTo(Score.parse("+++++-"));
+    expect.that(Score.parse("+++++-").isSolved()).isFalse();
+  }
+
+  @Test
+  public void tooLong() {
+    assertThrows(IllegalArgumentException.class, () -> Score.of("jukebox", "boxjuke"));
+    assertThrows(IllegalArgumentException.class, () -> Score.parse("+++++++"));
+  }
+
   @Test
   public void greenMask() {
     expect.that(Score.of("atone", "atone").greenMask()).isEqualTo(31 | (31 << 5) | (31 << 10) | (31 << 15) | (31 << 20));
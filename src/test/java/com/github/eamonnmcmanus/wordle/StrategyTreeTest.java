@@ -0,0 +1,135 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class StrategyTreeTest {
+  private static final Dictionary DICT = Dictionary.create();
+
+  private static List<String> readHardModeGames() throws IOException {
+    return Files.readAllLines(Paths.get("hard-mode-games.txt"));
+  }
+
+  private static StrategyTree.Verification verify(StrategyTree tree) {
+    return StrategyTree.verify(DICT, ByteBuffer.wrap(tree.toBytes()), true, 6);
+  }
+
+  @Test
+  public void hardModeGames() throws IOException {
+    StrategyTree.Verification result = verify(StrategyTree.fromGames(readHardModeGames()));
+    assertThat(result.errors()).isEmpty();
+    assertThat(result.solved()).isEqualTo(DICT.solutionWords().size());
+    assertThat(result.maxGuesses()).isEqualTo(6);
+    // The file says "average guesses 3.620".
+    assertThat(String.format("%.3f", (double) result.totalGuesses() / result.solved()))
+        .isEqualTo("3.620");
+  }
+
+  @Test
+  public void missingGame() throws IOException {
+    List<String> games =
+        readHardModeGames().stream()
+            .filter(line -> !line.endsWith(" plank:+++++"))
+            .collect(Collectors.toList());
+    StrategyTree.Verification result = verify(StrategyTree.fromGames(games));
+    assertThat(result.ok()).isFalse();
+    assertThat(result.errors()).hasSize(1);
+    assertThat(result.errors().get(0)).contains("plaid:+++-- plane:++++-");
+  }
+
+  @Test
+  public void tooManyGuesses() throws IOException {
+    StrategyTree.Verification result =
+        StrategyTree.verify(
+            DICT, ByteBuffer.wrap(StrategyTree.fromGames(readHardModeGames()).toBytes()), true, 5);
+    assertThat(result.errors()).hasSize(20);
+    assertThat(result.errors().get(0)).contains("more than 5 guesses");
+  }
+
+  @Test
+  public void truncated() throws IOException {
+    byte[] bytes = StrategyTree.fromGames(readHardModeGames()).toBytes();
+    for (int length : new int[] {0, 2, 4, 7, 12, bytes.length / 2, bytes.length - 1}) {
+      StrategyTree.Verification result = verify(Arrays.copyOf(bytes, length));
+      assertWithMessage("length %s", length).that(result.ok()).isFalse();
+    }
+  }
+
+  @Test
+  public void trailingBytes() throws IOException {
+    byte[] bytes = StrategyTree.fromGames(readHardModeGames()).toBytes();
+    StrategyTree.Verification result = verify(Arrays.copyOf(bytes, bytes.length + 3));
+    assertThat(result.errors()).containsExactly(" plaid: 3 bytes left over");
+  }
+
+  @Test
+  public void badChildLength() throws IOException {
+    byte[] bytes = StrategyTree.fromGames(readHardModeGames()).toBytes();
+    // The magic number, the guess, and the child count come before the score and length of the
+    // first child.
+    ByteBuffer.wrap(bytes).putInt(4 + 4 + 2 + 2, Integer.MAX_VALUE);
+    StrategyTree.Verification result = verify(bytes);
+    assertThat(result.ok()).isFalse();
+    assertThat(result.errors().get(0)).contains("child 0 has length");
+  }
+
+  private static StrategyTree.Verification verify(byte[] bytes) {
+    return StrategyTree.verify(DICT, ByteBuffer.wrap(bytes), true, 6);
+  }
+
+  @Test
+  public void notHardMode() {
+    List<String> games = List.of(" plaid:+++-- stare:--+-- plane:+++++");
+    StrategyTree.Verification result = verify(StrategyTree.fromGames(games));
+    assertThat(result.errors()).contains(" plaid:+++-- stare: not allowed in hard mode");
+  }
+
+  @Test
+  public void solverStrategy() throws IOException {
+    StrategyTree tree = StrategyTree.solve(
+        DICT, Score::of, Wordle::irvingGuesses, Wordle.Mode.HARD, Dictionary.encode("plaid"));
+    StrategyTree.Verification result = verify(tree);
+    assertThat(result.errors()).isEmpty();
+    assertThat(result.solved()).isEqualTo(DICT.solutionWords().size());
+    // hard-mode-games.txt is the strategy of irvingGuesses starting from plaid.
+    assertThat(tree.toBytes()).isEqualTo(StrategyTree.fromGames(readHardModeGames()).toBytes());
+  }
+
+  @Test
+  public void sixLetterWords() {
+    List<String> words = List.of("bright", "fright", "wright");
+    Dictionary dict = Dictionary.create(words, words);
+    List<String> games = List.of(
+        " bright:++++++",
+        " bright:-+++++ fright:++++++",
+        " bright:-+++++ fright:-+++++ wright:++++++");
+    StrategyTree tree = StrategyTree.fromGames(games);
+    StrategyTree.Verification result =
+        StrategyTree.verify(dict, ByteBuffer.wrap(tree.toBytes()), true, 6);
+    assertThat(result.errors()).isEmpty();
+    assertThat(result.solved()).isEqualTo(3);
+    assertThat(result.maxGuesses()).isEqualTo(3);
+
+    StrategyTree solved = StrategyTree.solve(
+        dict, Score::of, Wordle::irvingGuesses, Wordle.Mode.HARD, Dictionary.encode("bright"));
+    result = StrategyTree.verify(dict, ByteBuffer.wrap(solved.toBytes()), true, 6);
+    assertThat(result.errors()).isEmpty();
+    assertThat(result.solved()).isEqualTo(3);
+  }
+
+  @Test
+  public void mixedLengths() {
+    List<String> games = List.of(" plaid:+++++", " bright:-+++++ fright:++++++");
+    assertThrows(IllegalArgumentException.class, () -> StrategyTree.fromGames(games));
+  }
+}
@@ -0,0 +1,113 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Checks that choosing one guess is as fast as it should be, relative to the same machine. Each
+ * guesser is timed on every position after the opener plaid in hard mode, and on the opening
+ * position. The baseline, timed in the same way, is the exhaustive evaluation that the guessers
+ * did before they had bounds and partition representatives: tallying the partition of the
+ * consistent words for every allowed guess. Each guesser must take at most a given fraction of the
+ * baseline time. The fractions are about twice what was measured when they were set, so they only
+ * fail when something has become much slower. Timing is unreliable on a loaded machine, so this is
+ * only run in the {@code perf} profile.
+ */
+public class ThroughputPerfTest {
+  private static final Dictionary DICT = Dictionary.create();
+
+  private static final ImmutableMap<String, Wordle.Guesser> GUESSERS = ImmutableMap.of(
+      "knuth", Wordle::knuthGuesses,
+      "irving", Wordle::irvingGuesses,
+      "neuwirth", Wordle::neuwirthGuesses,
+      "weighted", Wordle::weightedGuesses);
+
+  // The most time each guesser may take, as a fraction of the baseline time for the same positions.
+  // When these were set, the measured fractions were about 0.3 to 0.4 for knuth, 0.45 to 0.6 for
+  // irving and weighted, and 0.55 to 0.8 for neuwirth.
+  private static final ImmutableMap<String, Double> MAX_FRACTIONS = ImmutableMap.of(
+      "knuth", 0.8,
+      "irving", 1.2,
+      "neuwirth", 1.6,
+      "weighted", 1.2);
+
+  private static final int WARMUP_RUNS = 3;
+  private static final int TIMED_RUNS = 5;
+
+  @Test
+  public void secondTurn() {
+    int plaid = Dictionary.encode("plaid");
+    Map<Integer, ScoreList> positions = new LinkedHashMap<>();
+    for (int solution : DICT.solutionWords()) {
+      Score score = Score.of(plaid, solution);
+      positions.computeIfAbsent(score.slots(), unused -> ScoreList.EMPTY.plus(plaid, score));
+    }
+    checkThroughput(ImmutableList.copyOf(positions.values()));
+  }
+
+  @Test
+  public void opening() {
+    checkThroughput(ImmutableList.of(ScoreList.EMPTY));
+  }
+
+  private static void checkThroughput(ImmutableList<ScoreList> positions) {
+    long baseline = best(null, positions);
+    for (Map.Entry<String, Wordle.Guesser> entry : GUESSERS.entrySet()) {
+      String name = entry.getKey();
+      double fraction = (double) best(entry.getValue(), positions) / baseline;
+      assertWithMessage(
+              String.format(
+                  "%s time as a fraction of the baseline, measured over %d positions",
+                  name, positions.size()))
+          .that(fraction)
+          .isAtMost(MAX_FRACTIONS.get(name));
+    }
+  }
+
+  // The least time over several runs for guesser, or for the baseline if guesser is null.
+  private static long best(Wordle.Guesser guesser, ImmutableList<ScoreList> positions) {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      run(guesser, positions);
+    }
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < TIMED_RUNS; i++) {
+      best = Math.min(best, run(guesser, positions));
+    }
+    return best;
+  }
+
+  // Returns the number of nanoseconds taken to choose guesses for every position, or to evaluate
+  // every allowed guess exhaustively if guesser is null.
+  private static long run(Wordle.Guesser guesser, ImmutableList<ScoreList> positions) {
+    long start = System.nanoTime();
+    Histogram histogram = new Histogram();
+    for (ScoreList scores : positions) {
+      Wordle wordle = new Wordle(
+          DICT,
+          Wordle.DEFAULT_SCORE_FACTORY,
+          scores,
+          Wordle.Mode.HARD,
+          false,
+          Workspace.forThread());
+      if (guesser == null) {
+        int[] consistent = wordle.consistentWords();
+        long sum = 0;
+        for (int i = 0; i < wordle.allowedCount(); i++) {
+          histogram.tally(Wordle.DEFAULT_SCORE_FACTORY, wordle.allowedGuess(i), consistent);
+          sum += histogram.sumOfSquares();
+        }
+        if (sum == 0) {
+          throw new AssertionError("No partitions after " + scores);
+        }
+      } else if (guesser.guesses(wordle).isEmpty()) {
+        throw new AssertionError("No guesses after " + scores);
+      }
+    }
+    return System.nanoTime() - start;
+  }
+}
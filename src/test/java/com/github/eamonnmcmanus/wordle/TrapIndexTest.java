@@ -0,0 +1,118 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.github.eamonnmcmanus.wordle.TrapIndex.Cluster;
+import java.util.BitSet;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class TrapIndexTest {
+  private static final Dictionary DICT = Dictionary.create();
+  private static final TrapIndex TRAPS = new TrapIndex(DICT, Score::of);
+
+  private static final String[] IGHT = {
+    "eight", "fight", "light", "might", "night", "right", "sight", "tight", "wight"
+  };
+  private static final String[] ATCH = {
+    "batch", "catch", "hatch", "latch", "match", "patch", "watch"
+  };
+
+  @Test
+  public void clusters() {
+    Cluster ight = TRAPS.cluster(Dictionary.encode("light"), 0);
+    assertThat(ight).isNotNull();
+    assertThat(ight.toString()).startsWith("_ight");
+    assertThat(ight.members().stream().map(Dictionary::decode).toList())
+        .containsExactly((Object[]) IGHT);
+    assertThat(TRAPS.cluster(Dictionary.encode("night"), 0)).isSameInstanceAs(ight);
+    // No other solution is l_ght.
+    assertThat(TRAPS.cluster(Dictionary.encode("light"), 1)).isNull();
+    for (Cluster cluster : TRAPS.clusters()) {
+      assertThat(cluster.members().size()).isAtLeast(2);
+    }
+  }
+
+  @Test
+  public void splitters() {
+    Cluster each = TRAPS.cluster(Dictionary.encode("beach"), 0);
+    assertThat(each.bestParts()).isEqualTo(5);
+    assertThat(each.splitters().isEmpty()).isFalse();
+    int[] members = each.members().stream().mapToInt(Integer::intValue).toArray();
+    Histogram histogram = new Histogram();
+    for (int i : each.splitters()) {
+      histogram.tally(Score::of, DICT.guessCode(i), members);
+      assertThat(histogram.size()).isEqualTo(each.bestParts());
+    }
+  }
+
+  @Test
+  public void greensOnClusterLeadToDeadEnd() {
+    BitSet consistent = new BitSet();
+    Stream.of(IGHT).forEach(w -> consistent.set(DICT.guessOrdinal(Dictionary.encode(w))));
+    int fight = Dictionary.encode("fight");
+    // After guessing fight, the 8 other words all score -++++ and have to be guessed one by one.
+    assertThat(TRAPS.leadsToDeadEnd(fight, consistent, 2)).isTrue();
+    consistent.clear();
+    Stream.of("fight", "light", "might").forEach(
+        w -> consistent.set(DICT.guessOrdinal(Dictionary.encode(w))));
+    assertThat(TRAPS.leadsToDeadEnd(fight, consistent, 2)).isFalse();
+    assertThat(TRAPS.leadsToDeadEnd(fight, consistent, 5)).isTrue();
+    assertThat(TRAPS.leadsToDeadEnd(Dictionary.encode("crane"), consistent, 5)).isFalse();
+  }
+
+  @Test
+  public void partialGreensLeadToDeadEnd() {
+    // After trace:/-/+- the candidates are batch, catch, hatch, latch, match, patch, watch. In hard
+    // mode every later guess must have a, t, and c, with a second. Guessing ticca reveals c, and
+    // leaves too many of them for the remaining turns.
+    int trace = Dictionary.encode("trace");
+    ScoreList scores = ScoreList.EMPTY.plus(trace, Score.parse("/-/+-"));
+    Wordle wordle = new Wordle(DICT, Score::of, scores, Wordle.Mode.HARD);
+    assertThat(wordle.consistentWords()).hasLength(7);
+    int ticca = Dictionary.encode("ticca");
+    assertThat(TRAPS.leadsToDeadEnd(Score::of, scores, ticca, wordle.consistentWords())).isTrue();
+  }
+
+  @Test
+  public void avoidingTrapsExcludesDeadEnds() {
+    int trace = Dictionary.encode("trace");
+    ScoreList scores = ScoreList.EMPTY.plus(trace, Score.parse("/-/+-"));
+    Wordle wordle = new Wordle(DICT, Score::of, scores, Wordle.Mode.HARD);
+    int allowed = wordle.allowedCount();
+    Wordle avoiding = wordle.avoidingTraps(TRAPS);
+    assertThat(avoiding.allowedCount()).isLessThan(allowed);
+    assertThat(Wordle.knuthGuesses(avoiding)).doesNotContain(Dictionary.encode("watch"));
+    Wordle normal = new Wordle(DICT, Score::of, scores, Wordle.Mode.NORMAL);
+    assertThat(normal.avoidingTraps(TRAPS)).isSameInstanceAs(normal);
+  }
+
+  @Test
+  public void avoidingShortensWorstGames() {
+    // Starting with slate, Knuth's guesser in hard mode takes 7 guesses to find batch. Avoiding
+    // traps, no word in either family takes more than 6.
+    Wordle.Guesser guesser = Wordle::knuthGuesses;
+    Wordle.Guesser avoiding = TRAPS.avoiding(Score::of, guesser);
+    int plainMax = 0;
+    int avoidingMax = 0;
+    for (String word : Stream.concat(Stream.of(IGHT), Stream.of(ATCH)).toList()) {
+      int actual = Dictionary.encode(word);
+      plainMax = Math.max(plainMax, play(guesser, actual));
+      avoidingMax = Math.max(avoidingMax, play(avoiding, actual));
+    }
+    assertThat(avoidingMax).isLessThan(plainMax);
+    assertThat(avoidingMax).isAtMost(TrapIndex.MAX_GUESSES);
+  }
+
+  // The number of guesses it takes guesser to find actual in hard mode, starting with slate.
+  private static int play(Wordle.Guesser guesser, int actual) {
+    int slate = Dictionary.encode("slate");
+    ScoreList scores = ScoreList.EMPTY.plus(slate, Score.of(slate, actual));
+    while (!scores.solved()) {
+      Wordle wordle = new Wordle(DICT, Score::of, scores, Wordle.Mode.HARD);
+      int guess = guesser.guesses(wordle).get(0);
+      scores = scores.plus(guess, Score.of(guess, actual));
+    }
+    return scores.size();
+  }
+}
@@ -0,0 +1,142 @@
+package com.github.eamonnmcmanus.wordle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+public class WordleTest {
+  private static final Dictionary DICT = Dictionary.create();
+  private static final ImmutableList<Wordle.Guesser> GUESSERS =
+      ImmutableList.of(
+          Wordle::knuthGuesses,
+          Wordle::irvingGuesses,
+          Wordle::neuwirthGuesses,
+          Wordle::weightedGuesses);
+
+  private static ScoreList scores(String actual, String... guesses) {
+    ScoreList scores = ScoreList.EMPTY;
+    for (String guess : guesses) {
+      scores = scores.plus(guess, Score.of(guess, actual));
+    }
+    return scores;
+  }
+
+  @Test
+  public void parallelSameAsSerial() {
+    ImmutableList<ScoreList> positions = ImmutableList.of(
+        scores("knoll", "plaid"),
+        scores("watch", "plaid"),
+        scores("watch", "plaid", "stare"),
+        scores("shire", "trace", "sprig"));
+    for (Wordle.Mode mode : Wordle.Mode.values()) {
+      for (ScoreList scores : positions) {
+        Wordle serial = new Wordle(DICT, Score::of, scores, mode, false);
+        Wordle parallel = new Wordle(DICT, Score::of, scores, mode, true);
+        for (Wordle.Guesser guesser : GUESSERS) {
+          assertThat(guesser.guesses(parallel)).isEqualTo(guesser.guesses(serial));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void sixLetterWords() {
+    ImmutableList<String> words = ImmutableList.of(
+        "strand", "stands", "brands", "grands", "grains", "trains", "strain", "sprain", "planet",
+        "plants", "slants", "chants", "charts", "starts", "smarts", "quartz");
+    Dictionary dict = Dictionary.create(words, words);
+    for (Wordle.Mode mode : Wordle.Mode.values()) {
+      for (Wordle.Guesser guesser : GUESSERS) {
+        for (int actual : dict.solutionWords()) {
+          ScoreList scores = ScoreList.EMPTY;
+          while (!scores.solved()) {
+            assertThat(scores.size()).isLessThan(dict.guessCount());
+            Wordle wordle = new Wordle(dict, Score::of, scores, mode, false);
+            int guess = guesser.guesses(wordle).get(0);
+            scores = scores.plus(guess, Score.of(guess, actual));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void weightedGuessesMinimizeExpectedWeight() {
+    Dictionary dict = Dictionary.createTiered();
+    for (ScoreList scores : ImmutableList.of(scores("watch", "plaid"), scores("knoll", "raise"))) {
+      Wordle wordle = new Wordle(dict, Score::of, scores, Wordle.Mode.HARD, false);
+      int[] candidates = wordle.consistentWords();
+      int[] weights = wordle.consistentWeights();
+      Histogram histogram = new Histogram();
+      long best = Long.MAX_VALUE;
+      for (int guess : dict.guessWords()) {
+        if (scores.allowedInHardMode(guess)) {
+          best = Math.min(best, cost(histogram, dict, scores, guess, candidates, weights));
+        }
+      }
+      for (int guess : Wordle.weightedGuesses(wordle)) {
+        assertThat(cost(histogram, dict, scores, guess, candidates, weights)).isEqualTo(best);
+      }
+    }
+  }
+
+  private static long cost(
+      Histogram histogram,
+      Dictionary dict,
+      ScoreList scores,
+      int guess,
+      int[] candidates,
+      int[] weights) {
+    long sum = histogram.weightedSumOfSquaresWithin(
+        Score::of, guess, candidates, weights, Long.MAX_VALUE);
+    long weight = scores.consistentWith(guess) ? dict.weight(guess) : 0;
+    return sum - weight * weight;
+  }
+
+  // How much each game of sharedWorkspaceAllocatesLess allocated before Wordle had a Workspace,
+  // measured with the same games and getThreadAllocatedBytes at the commit that added it.
+  private static final long BYTES_PER_GAME_WITHOUT_WORKSPACE = 176_000;
+
+  @Test
+  public void sharedWorkspaceAllocatesLess() {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+    long threadId = Thread.currentThread().getId();
+    ImmutableList<Integer> actuals = DICT.solutionWords().asList().subList(0, 100);
+    // Warm up, so that the shared workspace has reached its full size.
+    playAll(actuals, Workspace::forThread);
+    long start = threads.getThreadAllocatedBytes(threadId);
+    int sharedTotal = playAll(actuals, Workspace::forThread);
+    long shared = threads.getThreadAllocatedBytes(threadId) - start;
+    start = threads.getThreadAllocatedBytes(threadId);
+    int separateTotal = playAll(actuals, Workspace::new);
+    long separate = threads.getThreadAllocatedBytes(threadId) - start;
+    assertThat(sharedTotal).isEqualTo(separateTotal);
+    assertThat(shared * 10).isLessThan(separate);
+    assertThat(shared / actuals.size() * 10).isLessThan(BYTES_PER_GAME_WITHOUT_WORKSPACE);
+  }
+
+  // Plays a hard-mode game starting with "plaid" for each word in actuals, and returns the total
+  // number of guesses.
+  private static int playAll(ImmutableList<Integer> actuals, Supplier<Workspace> workspaces) {
+    int total = 0;
+    int plaid = Dictionary.encode("plaid");
+    for (int actual : actuals) {
+      ScoreList scores = ScoreList.EMPTY.plus(plaid, Score.of(plaid, actual));
+      while (!scores.solved()) {
+        Wordle wordle =
+            new Wordle(DICT, Score::of, scores, Wordle.Mode.HARD, false, workspaces.get());
+        int guess = Wordle.knuthGuesses(wordle).get(0);
+        scores = scores.plus(guess, Score.of(guess, actual));
+      }
+      total += scores.size();
+    }
+    return total;
+  }
+}